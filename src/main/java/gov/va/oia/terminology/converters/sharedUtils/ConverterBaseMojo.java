@@ -18,10 +18,39 @@
  */
 package gov.va.oia.terminology.converters.sharedUtils;
 
+import gov.va.oia.terminology.converters.sharedUtils.output.AsyncConceptWriter;
+import gov.va.oia.terminology.converters.sharedUtils.output.ChannelConceptWriter;
+import gov.va.oia.terminology.converters.sharedUtils.output.ChannelDataOutput;
+import gov.va.oia.terminology.converters.sharedUtils.output.ConceptWriter;
+import gov.va.oia.terminology.converters.sharedUtils.output.CountingOutputStream;
+import gov.va.oia.terminology.converters.sharedUtils.output.DirectConceptWriter;
+import gov.va.oia.terminology.converters.sharedUtils.output.FramedCompressionOutputStream;
+import gov.va.oia.terminology.converters.sharedUtils.output.ParallelConceptWriter;
+import gov.va.oia.terminology.converters.sharedUtils.output.ShardedConceptWriter;
+import gov.va.oia.terminology.converters.sharedUtils.stats.ConversionCheckpoint;
+import gov.va.oia.terminology.converters.sharedUtils.stats.ConversionMonitor;
 import gov.va.oia.terminology.converters.sharedUtils.stats.ConverterUUID;
+import gov.va.oia.terminology.converters.sharedUtils.stats.ConverterUUIDContext;
+import gov.va.oia.terminology.converters.sharedUtils.stats.HeapPeakSampler;
+import gov.va.oia.terminology.converters.sharedUtils.stats.LoadStats;
+import gov.va.oia.terminology.converters.sharedUtils.stats.RunReport;
+import gov.va.oia.terminology.converters.sharedUtils.stats.SortedDebugMapWriter;
+import java.io.BufferedOutputStream;
 import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Parameter;
@@ -77,6 +106,110 @@ public abstract class ConverterBaseMojo extends AbstractMojo
 	@Parameter (required = false, defaultValue = "${skipUUIDDebug}")
 	private String createDebugUUIDMap;
 	
+	/**
+	 * Set '-DuuidDupeCheckOnly' on the command line, to keep UUID duplicate detection, but not store the creation strings in the 
+	 * UUID Debug map.  This uses a fraction of the RAM of the full debug map, but the debug map file will not be populated.
+	 * Ignored if skipUUIDDebug is set.
+	 */
+	@Parameter (required = false, defaultValue = "${uuidDupeCheckOnly}")
+	private String uuidDupeCheckOnly;
+	
+	/**
+	 * Set '-DuuidDebugOnDisk' on the command line, to store the UUID Debug map in memory mapped files in the output directory, rather 
+	 * than on the heap.  Duplicate detection and the debug map file are unaffected, but heap use no longer grows with the size of 
+	 * the terminology.
+	 */
+	@Parameter (required = false, defaultValue = "${uuidDebugOnDisk}")
+	private String uuidDebugOnDisk;
+	
+	/**
+	 * Set '-DuuidDebugDumpSort=UUID' or '-DuuidDebugDumpSort=CREATION_STRING' on the command line to write the UUID Debug map file 
+	 * sorted (with an external sort, so the map isn't copied on the heap) and gzip compressed - which makes it practical to diff 
+	 * the file between releases.
+	 */
+	@Parameter (required = false, defaultValue = "${uuidDebugDumpSort}")
+	private String uuidDebugDumpSort;
+	
+	/**
+	 * Set '-DuuidDebugPreviousRelease=path' on the command line, where path is the UUID Debug map file (DebugMap.txt or DebugMap.txt.gz) 
+	 * from the previous release of this conversion.  The load stats will then report the new, retired and unchanged UUIDs - and the 
+	 * retired UUIDs are written to a RetiredUUIDs.txt file alongside the debug map.
+	 */
+	@Parameter (required = false, defaultValue = "${uuidDebugPreviousRelease}")
+	private String uuidDebugPreviousRelease;
+	
+	/**
+	 * Set '-DuuidTiming' on the command line to time the generation of every UUID - reported as 'UUID Generation' in the load stats 
+	 * timings, and in the run report.
+	 */
+	@Parameter (required = false, defaultValue = "${uuidTiming}")
+	private String uuidTiming;
+	
+	/**
+	 * Set '-DrunReportBaseline=path' on the command line, where path is the RunReport.json (or RunReport.csv) written by an earlier 
+	 * run of this conversion, to fail the build if the throughput or any of the component counts of this run are more than 
+	 * runReportThreshold percent below the baseline.  Only checked by loaders which call {@link #writeRunReport()}.
+	 */
+	@Parameter (required = false, defaultValue = "${runReportBaseline}")
+	private String runReportBaseline;
+	
+	/**
+	 * Set '-DrunReportThreshold=n' on the command line to allow a drop of up to n percent from the runReportBaseline values.  
+	 * Defaults to 10.
+	 */
+	@Parameter (required = false, defaultValue = "${runReportThreshold}")
+	private String runReportThreshold;
+	
+	/**
+	 * Set '-DsynchronousConceptWriter' on the command line to validate and write the concepts on the loader thread, rather than on a 
+	 * background thread (for loaders that use {@link #openConceptWriter(File)}) - which can make failures easier to debug.
+	 */
+	@Parameter (required = false, defaultValue = "${synchronousConceptWriter}")
+	private String synchronousConceptWriter;
+	
+	/**
+	 * Set '-DconceptWriterThreads=n' on the command line, with n > 1, to validate and serialize the concepts on n threads (for loaders 
+	 * that use {@link #openConceptWriter(File)}).  The output is identical, whatever the thread count.
+	 */
+	@Parameter (required = false, defaultValue = "${conceptWriterThreads}")
+	private String conceptWriterThreads;
+	
+	/**
+	 * Set '-DoutputShards=n' on the command line, with n > 1, to partition the concepts across n shard files, each written by its 
+	 * own thread, with a manifest (for loaders that use {@link #openConceptWriter(File)}).  See {@link ShardedConceptWriter}.
+	 */
+	@Parameter (required = false, defaultValue = "${outputShards}")
+	private String outputShards;
+	
+	/**
+	 * Set '-DcompressOutput' on the command line to write the output (for loaders that use {@link #openOutputStream(File)} or 
+	 * {@link #openConceptWriter(File)}) as independently decodable compressed frames.  See {@link FramedCompressionOutputStream}.
+	 */
+	@Parameter (required = false, defaultValue = "${compressOutput}")
+	private String compressOutput;
+	
+	/**
+	 * Set '-DchannelOutput=buffer' (or '-DchannelOutput=mapped') on the command line to write the concepts on the loader thread, 
+	 * straight into a direct buffer written through a FileChannel (or into memory mapped regions of the file) - for loaders that 
+	 * use {@link #openConceptWriter(File)}.  See {@link ChannelDataOutput}.  The output is not compressed in this mode.
+	 */
+	@Parameter (required = false, defaultValue = "${channelOutput}")
+	private String channelOutput;
+	
+	/**
+	 * Set '-DcheckpointMinutes=n' on the command line to write a checkpoint of the conversion (next to the output file) every n 
+	 * minutes - for loaders that call {@link #checkpoint(long)} - so a failed conversion can be resumed with resumeFromCheckpoint.
+	 */
+	@Parameter (required = false, defaultValue = "${checkpointMinutes}")
+	private String checkpointMinutes;
+	
+	/**
+	 * Set '-DresumeFromCheckpoint' on the command line to resume a failed conversion from its last checkpoint (see checkpointMinutes) - 
+	 * for loaders that call {@link #resumeFromCheckpoint()}.  If there is no checkpoint, the conversion starts from the beginning.
+	 */
+	@Parameter (required = false, defaultValue = "${resumeFromCheckpoint}")
+	private String resumeFromCheckpoint;
+	
 	/**
 	 * An optional list of annotation type names which should be skipped during this transformation.
 	 */
@@ -108,16 +241,43 @@ public abstract class ConverterBaseMojo extends AbstractMojo
 	protected List<String> relationshipSkipList;
 	
 	protected DataOutputStream dos_;
+	protected ConceptWriter conceptWriter_;
 	protected EConceptUtility conceptUtility_;
+	protected ConverterUUIDContext uuidContext_;
+	protected ConversionMonitor monitor_;
+	private long startTime_;
+	private HeapPeakSampler heapSampler_;
+	private File checkpointFile_;
+	private long checkpointIntervalMillis_;
+	private long lastCheckpoint_;
+	private ConversionCheckpoint resumeCheckpoint_;
+	private ResumeGate resumeGate_;
+	private CountingOutputStream outputCounter_;
+	private FileOutputStream outputFileStream_;
+	private long outputBase_;
 	
 	@Override
 	public void execute() throws MojoExecutionException
 	{
-		ConverterUUID.disableUUIDMap_ = ((createDebugUUIDMap == null || createDebugUUIDMap.length() == 0) ? false : Boolean.parseBoolean(createDebugUUIDMap));
-		if (ConverterUUID.disableUUIDMap_)
+		startTime_ = System.currentTimeMillis();
+		if (heapSampler_ != null)
+		{
+			heapSampler_.stop();
+		}
+		heapSampler_ = new HeapPeakSampler(100);
+		uuidContext_ = createUUIDContext();
+		uuidContext_.setUUIDMapDisabled(((createDebugUUIDMap == null || createDebugUUIDMap.length() == 0) ? false : Boolean.parseBoolean(createDebugUUIDMap)));
+		if (uuidContext_.isUUIDMapDisabled())
 		{
 			ConsoleUtil.println("The UUID Debug map is disabled - this also prevents duplicate ID detection");
 		}
+		uuidContext_.setDupeCheckOnly(((uuidDupeCheckOnly == null || uuidDupeCheckOnly.length() == 0) ? false : Boolean.parseBoolean(uuidDupeCheckOnly)));
+		if (uuidContext_.isDupeCheckOnly() && !uuidContext_.isUUIDMapDisabled())
+		{
+			ConsoleUtil.println("The UUID Debug map is in duplicate detection only mode - UUID creation strings will not be available");
+		}
+		
+		uuidContext_.setUUIDTimingEnabled(((uuidTiming == null || uuidTiming.length() == 0) ? false : Boolean.parseBoolean(uuidTiming)));
 		
 		// Set up the output
 		if (!outputDirectory.exists())
@@ -125,7 +285,509 @@ public abstract class ConverterBaseMojo extends AbstractMojo
 			outputDirectory.mkdirs();
 		}
 		
+		if (!uuidContext_.isUUIDMapDisabled() && uuidDebugOnDisk != null && uuidDebugOnDisk.length() > 0 && Boolean.parseBoolean(uuidDebugOnDisk))
+		{
+			try
+			{
+				uuidContext_.enableDiskBackedMap(outputDirectory);
+			}
+			catch (IOException e)
+			{
+				throw new MojoExecutionException("Unable to create the disk backed UUID Debug map", e);
+			}
+		}
+		
+		if (uuidDebugDumpSort != null && uuidDebugDumpSort.length() > 0)
+		{
+			try
+			{
+				uuidContext_.setDumpSortOrder(SortedDebugMapWriter.SortBy.valueOf(uuidDebugDumpSort.trim().toUpperCase()));
+			}
+			catch (IllegalArgumentException e)
+			{
+				throw new MojoExecutionException("Invalid value for uuidDebugDumpSort: '" + uuidDebugDumpSort + "' - expected one of " 
+						+ Arrays.toString(SortedDebugMapWriter.SortBy.values()), e);
+			}
+		}
+		
+		if (uuidDebugPreviousRelease != null && uuidDebugPreviousRelease.length() > 0)
+		{
+			File previousRelease = new File(uuidDebugPreviousRelease.trim());
+			if (!previousRelease.isFile())
+			{
+				throw new MojoExecutionException("The previous release UUID Debug map '" + previousRelease.getAbsolutePath() + "' does not exist");
+			}
+			try
+			{
+				uuidContext_.loadPreviousRelease(previousRelease, outputDirectory);
+			}
+			catch (IOException e)
+			{
+				throw new MojoExecutionException("Unable to load the previous release UUID Debug map", e);
+			}
+		}
+		
 		checkSkipListSupport();
+		
+		registerMonitor();
+	}
+	
+	/**
+	 * Publish the progress of this conversion over JMX (as {@link ConversionMonitor#DOMAIN}:type=Conversion,name=[loader class name],run=[n]), 
+	 * reading from {@link #conceptUtility_}, {@link #uuidContext_} and {@link #conceptWriter_} / {@link #dos_} as they are set up.
+	 * Unregistered by {@link #finishConversion()}.
+	 */
+	private void registerMonitor()
+	{
+		if (monitor_ != null)
+		{
+			monitor_.unregister();
+		}
+		monitor_ = new ConversionMonitor(new MonitorSource(this));
+		try
+		{
+			monitor_.register(getClass().getSimpleName());
+		}
+		catch (JMException e)
+		{
+			ConsoleUtil.printErrorln("Unable to register the JMX conversion monitor: " + e);
+		}
+	}
+	
+	/**
+	 * End of the conversion - unregisters the JMX conversion monitor, and stops sampling the heap use for the run report.  Loaders 
+	 * should call this in a finally block at the end of their execute() (after {@link #writeRunReport()}).
+	 * 
+	 * A {@link #conceptWriter_} that the loader didn't close is closed here (with an error message) - rather than leaving concepts 
+	 * still queued, or buffered, to be lost when the JVM exits.
+	 * @throws MojoExecutionException if closing the concept writer fails
+	 */
+	protected void finishConversion() throws MojoExecutionException
+	{
+		try
+		{
+			ConceptWriter conceptWriter = conceptWriter_;
+			if (conceptWriter != null && !conceptWriter.isClosed())
+			{
+				ConsoleUtil.printErrorln("The concept writer was not closed by the loader - closing it");
+				conceptWriter.close();
+			}
+		}
+		catch (IOException e)
+		{
+			throw new MojoExecutionException("Unable to close the concept writer", e);
+		}
+		finally
+		{
+			if (heapSampler_ != null)
+			{
+				heapSampler_.stop();
+				heapSampler_ = null;
+			}
+			if (monitor_ != null)
+			{
+				monitor_.unregister();
+				monitor_ = null;
+			}
+		}
+	}
+	
+	/**
+	 * Only weakly references the mojo - so the MBean server doesn't keep the mojo (and its UUID debug map) reachable from a loader 
+	 * that never calls {@link #finishConversion()}.
+	 */
+	private static class MonitorSource implements ConversionMonitor.Source
+	{
+		private final WeakReference<ConverterBaseMojo> mojo_;
+		
+		MonitorSource(ConverterBaseMojo mojo)
+		{
+			mojo_ = new WeakReference<>(mojo);
+		}
+		
+		@Override
+		public LoadStats getLoadStats()
+		{
+			ConverterBaseMojo mojo = mojo_.get();
+			EConceptUtility conceptUtility = (mojo == null ? null : mojo.conceptUtility_);
+			return conceptUtility == null ? null : conceptUtility.getLoadStats();
+		}
+
+		@Override
+		public ConverterUUIDContext getUUIDContext()
+		{
+			ConverterBaseMojo mojo = mojo_.get();
+			return mojo == null ? null : mojo.uuidContext_;
+		}
+
+		@Override
+		public long getBytesWritten()
+		{
+			ConverterBaseMojo mojo = mojo_.get();
+			return mojo == null ? 0 : mojo.getBytesWritten();
+		}
+	}
+	
+	/**
+	 * Open the output file for writing concepts - sets up {@link #conceptWriter_}, which loaders should pass their finished concepts 
+	 * to, and {@link #dos_}, for anything that writes to the output directly (such as the EConceptUtility metadata methods).
+	 * The concepts are validated and written on a background thread (an {@link AsyncConceptWriter}), on a pool of threads 
+	 * (a {@link ParallelConceptWriter}) if conceptWriterThreads is set, or on the loader thread if synchronousConceptWriter is set.
+	 * If outputShards is set, the concepts are instead partitioned across that many files named after the outputFile (which is 
+	 * not itself created) - see {@link ShardedConceptWriter}.  If channelOutput is set, they are written on the loader thread 
+	 * through a {@link ChannelDataOutput}.
+	 * Close {@link #conceptWriter_} when done.
+	 */
+	protected ConceptWriter openConceptWriter(File outputFile) throws IOException
+	{
+		int threads = parseCount("conceptWriterThreads", conceptWriterThreads);
+		int shards = parseCount("outputShards", outputShards);
+		if ((shards > 1 || (channelOutput != null && channelOutput.length() > 0)) && checkpointsEnabled())
+		{
+			throw new IOException("Checkpoints are not supported with outputShards or channelOutput");
+		}
+		if (shards > 1)
+		{
+			ShardedConceptWriter writer = new ShardedConceptWriter(outputFile, shards);
+			dos_ = writer.getDataOutputStream();
+			conceptWriter_ = writer;
+			return conceptWriter_;
+		}
+		if (channelOutput != null && channelOutput.length() > 0)
+		{
+			String mode = channelOutput.trim().toLowerCase();
+			if (!mode.equals("buffer") && !mode.equals("mapped"))
+			{
+				throw new IOException("Invalid value for channelOutput: '" + channelOutput + "' - expected 'buffer' or 'mapped'");
+			}
+			if (compressOutput != null && compressOutput.length() > 0 && Boolean.parseBoolean(compressOutput))
+			{
+				ConsoleUtil.printErrorln("compressOutput is ignored, when channelOutput is set");
+			}
+			ChannelConceptWriter writer = new ChannelConceptWriter(ChannelDataOutput.open(outputFile, mode.equals("mapped")));
+			dos_ = writer.getDataOutputStream();
+			conceptWriter_ = writer;
+			return conceptWriter_;
+		}
+		OutputStream out = openOutputStream(outputFile);
+		if (synchronousConceptWriter != null && synchronousConceptWriter.length() > 0 && Boolean.parseBoolean(synchronousConceptWriter))
+		{
+			DirectConceptWriter writer = new DirectConceptWriter(out);
+			dos_ = writer.getDataOutputStream();
+			conceptWriter_ = writer;
+		}
+		else if (threads > 1)
+		{
+			ParallelConceptWriter writer = new ParallelConceptWriter(out, threads);
+			dos_ = writer.getDataOutputStream();
+			conceptWriter_ = writer;
+		}
+		else
+		{
+			AsyncConceptWriter writer = new AsyncConceptWriter(out);
+			dos_ = writer.getDataOutputStream();
+			conceptWriter_ = writer;
+		}
+		return conceptWriter_;
+	}
+	
+	/**
+	 * Open a (buffered) stream to write the output file - compressed, if compressOutput is set.  Loaders that set up {@link #dos_}
+	 * themselves should open it over this stream.
+	 */
+	protected OutputStream openOutputStream(File outputFile) throws IOException
+	{
+		boolean compress = compressOutput != null && compressOutput.length() > 0 && Boolean.parseBoolean(compressOutput);
+		OutputStream out = new BufferedOutputStream(openOutputFile(outputFile, compress), 1 << 16);
+		if (compress)
+		{
+			try
+			{
+				return new FramedCompressionOutputStream(out);
+			}
+			catch (IOException | RuntimeException e)
+			{
+				out.close();
+				throw e;
+			}
+		}
+		return out;
+	}
+	
+	private boolean checkpointsEnabled() throws IOException
+	{
+		return parseCount("checkpointMinutes", checkpointMinutes) > 0 
+				|| (resumeFromCheckpoint != null && resumeFromCheckpoint.length() > 0 && Boolean.parseBoolean(resumeFromCheckpoint));
+	}
+	
+	/**
+	 * Open the output file - counting the bytes written, if checkpoints are enabled, and truncating the file to the last checkpoint,
+	 * if resuming.
+	 */
+	private OutputStream openOutputFile(File outputFile, boolean compress) throws IOException
+	{
+		checkpointFile_ = null;
+		checkpointIntervalMillis_ = 0;
+		resumeCheckpoint_ = null;
+		resumeGate_ = null;
+		outputCounter_ = null;
+		outputFileStream_ = null;
+		outputBase_ = 0;
+		if (!checkpointsEnabled())
+		{
+			return new FileOutputStream(outputFile);
+		}
+		if (compress)
+		{
+			throw new IOException("Checkpoints are not supported with compressOutput");
+		}
+		checkpointFile_ = new File(outputFile.getParentFile(), outputFile.getName() + ".checkpoint");
+		checkpointIntervalMillis_ = TimeUnit.MINUTES.toMillis(parseCount("checkpointMinutes", checkpointMinutes));
+		lastCheckpoint_ = System.currentTimeMillis();
+		if (resumeFromCheckpoint != null && resumeFromCheckpoint.length() > 0 && Boolean.parseBoolean(resumeFromCheckpoint))
+		{
+			if (checkpointFile_.isFile())
+			{
+				ConversionCheckpoint checkpoint = ConversionCheckpoint.read(checkpointFile_);
+				if (outputFile.length() < checkpoint.getOutputOffset())
+				{
+					throw new IOException("The output file " + outputFile.getAbsolutePath() + " is shorter than its checkpoint - it can't be resumed");
+				}
+				try (RandomAccessFile raf = new RandomAccessFile(outputFile, "rw"))
+				{
+					raf.setLength(checkpoint.getOutputOffset());
+				}
+				ConsoleUtil.println("Resuming from the " + checkpoint + " - the output file has been truncated to the checkpoint");
+				resumeCheckpoint_ = checkpoint;
+				outputBase_ = checkpoint.getOutputOffset();
+				outputFileStream_ = new FileOutputStream(outputFile, true);
+				outputCounter_ = new CountingOutputStream(outputFileStream_);
+				resumeGate_ = new ResumeGate(outputCounter_);
+				return resumeGate_;
+			}
+			ConsoleUtil.println("There is no checkpoint to resume from at " + checkpointFile_.getAbsolutePath() + " - starting from the beginning");
+		}
+		try
+		{
+			ConversionCheckpoint.delete(checkpointFile_);
+		}
+		catch (IOException e)
+		{
+			throw new IOException("Unable to delete the checkpoint of a previous run " + checkpointFile_.getAbsolutePath(), e);
+		}
+		outputFileStream_ = new FileOutputStream(outputFile);
+		outputCounter_ = new CountingOutputStream(outputFileStream_);
+		return outputCounter_;
+	}
+	
+	/**
+	 * Loaders that support resuming call this once their setup is done - {@link #conceptUtility_} created, and the metadata written - 
+	 * and before converting any source records.  When resuming (resumeFromCheckpoint is set, and there is a checkpoint), this restores 
+	 * the load stats and the UUID debug map recorded in the checkpoint, and from then on, output is appended to the output file (which 
+	 * was truncated to the checkpoint by {@link #openOutputStream(File)}).  The setup output is discarded, as it is already in the file - 
+	 * so the setup must be the same on every run.  Any other state a loader builds up from the source records, it must rebuild itself.
+	 * @return the source position to resume from - the records before it should be skipped - or 0, when not resuming.
+	 */
+	protected long resumeFromCheckpoint() throws IOException
+	{
+		ConversionCheckpoint checkpoint = resumeCheckpoint_;
+		if (checkpoint == null)
+		{
+			return 0;
+		}
+		if (conceptUtility_ == null)
+		{
+			throw new IllegalStateException("conceptUtility_ must be set up before resuming");
+		}
+		flushOutput();
+		resumeGate_.open_ = true;
+		conceptUtility_.clearLoadStats();
+		LoadStats ls = conceptUtility_.getLoadStats();
+		checkpoint.restore(ls, ls.getUUIDContext());
+		resumeCheckpoint_ = null;
+		ConsoleUtil.println("Restored " + checkpoint.getConceptCount() + " concepts from the checkpoint - resuming at source position " 
+				+ checkpoint.getSourcePosition());
+		return checkpoint.getSourcePosition();
+	}
+	
+	/**
+	 * Loaders that support resuming call this as they convert the source records - it is cheap enough to call after every record.  Once 
+	 * checkpointMinutes have passed since the last checkpoint, the output is flushed and forced to disk, and a new checkpoint is written - 
+	 * so a checkpoint never records output that a crash could lose.
+	 * @param sourcePosition - the position in the source to resume from - every record before it must have been converted and handed 
+	 *     to the output, and none after it.
+	 * @return true, if a checkpoint was written
+	 */
+	protected boolean checkpoint(long sourcePosition) throws IOException
+	{
+		if (checkpointIntervalMillis_ <= 0 || System.currentTimeMillis() - lastCheckpoint_ < checkpointIntervalMillis_)
+		{
+			return false;
+		}
+		if (resumeCheckpoint_ != null)
+		{
+			throw new IllegalStateException("resumeFromCheckpoint() must be called before checkpoint(long)");
+		}
+		if (conceptUtility_ == null)
+		{
+			throw new IllegalStateException("conceptUtility_ must be set up before checkpointing");
+		}
+		long start = System.currentTimeMillis();
+		flushOutput();
+		outputFileStream_.getFD().sync();
+		LoadStats ls = conceptUtility_.getLoadStats();
+		ConversionCheckpoint checkpoint = ConversionCheckpoint.write(checkpointFile_, outputBase_ + outputCounter_.getCount(), sourcePosition, ls, 
+				ls.getUUIDContext());
+		lastCheckpoint_ = System.currentTimeMillis();
+		ConsoleUtil.println("Wrote a " + checkpoint + " in " + (lastCheckpoint_ - start) + "ms");
+		return true;
+	}
+	
+	private void flushOutput() throws IOException
+	{
+		if (conceptWriter_ != null)
+		{
+			conceptWriter_.flush();
+		}
+		else if (dos_ != null)
+		{
+			dos_.flush();
+		}
+	}
+	
+	/**
+	 * Discards everything written to it, until opened - for the setup output of a resumed conversion, which is already in the output file.
+	 */
+	private static class ResumeGate extends FilterOutputStream
+	{
+		private volatile boolean open_ = false;
+		
+		private ResumeGate(OutputStream out)
+		{
+			super(out);
+		}
+		
+		@Override
+		public void write(int b) throws IOException
+		{
+			if (open_)
+			{
+				out.write(b);
+			}
+		}
+		
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException
+		{
+			if (open_)
+			{
+				out.write(b, off, len);
+			}
+		}
+	}
+	
+	private static int parseCount(String name, String value) throws IOException
+	{
+		if (value == null || value.length() == 0)
+		{
+			return 0;
+		}
+		try
+		{
+			return Integer.parseInt(value.trim());
+		}
+		catch (NumberFormatException e)
+		{
+			throw new IOException("Invalid value for " + name + ": '" + value + "'", e);
+		}
+	}
+	
+	/**
+	 * The bytes written so far - counted by the {@link #conceptWriter_}, if there is one, otherwise by {@link #dos_} (in which 
+	 * case, the count stops at Integer.MAX_VALUE)
+	 */
+	private long getBytesWritten()
+	{
+		ConceptWriter conceptWriter = conceptWriter_;
+		if (conceptWriter != null)
+		{
+			return conceptWriter.getBytesWritten();
+		}
+		DataOutputStream dos = dos_;
+		return dos == null ? 0 : dos.size();
+	}
+	
+	/**
+	 * Write the machine readable {@link RunReport} of this conversion to RunReport.json and RunReport.csv in the output directory - 
+	 * and, if runReportBaseline is set, compare it with the baseline, failing on any regressions.  Loaders should call this once 
+	 * they have finished writing (and before they clear the load stats).
+	 */
+	protected void writeRunReport() throws MojoExecutionException
+	{
+		RunReport report = new RunReport(conceptUtility_.getLoadStats(), System.currentTimeMillis() - startTime_, getBytesWritten(), 
+				heapSampler_ == null ? 0 : heapSampler_.getPeak());
+		try
+		{
+			try (Writer w = new OutputStreamWriter(new FileOutputStream(new File(outputDirectory, "RunReport.json")), StandardCharsets.UTF_8))
+			{
+				report.writeJson(w);
+			}
+			try (Writer w = new OutputStreamWriter(new FileOutputStream(new File(outputDirectory, "RunReport.csv")), StandardCharsets.UTF_8))
+			{
+				report.writeCsv(w);
+			}
+		}
+		catch (IOException e)
+		{
+			throw new MojoExecutionException("Unable to write the run report", e);
+		}
+		
+		if (runReportBaseline != null && runReportBaseline.length() > 0)
+		{
+			double threshold = 10.0;
+			if (runReportThreshold != null && runReportThreshold.length() > 0)
+			{
+				try
+				{
+					threshold = Double.parseDouble(runReportThreshold.trim());
+				}
+				catch (NumberFormatException e)
+				{
+					throw new MojoExecutionException("Invalid value for runReportThreshold: '" + runReportThreshold + "'", e);
+				}
+			}
+			RunReport baseline;
+			try
+			{
+				baseline = RunReport.read(new File(runReportBaseline.trim()));
+			}
+			catch (IOException e)
+			{
+				throw new MojoExecutionException("Unable to read the run report baseline", e);
+			}
+			List<String> regressions = report.compareTo(baseline, threshold);
+			if (regressions.size() > 0)
+			{
+				for (String regression : regressions)
+				{
+					ConsoleUtil.printErrorln("Regression: " + regression);
+				}
+				throw new MojoExecutionException(regressions.size() + " regression(s) of more than " + threshold + "% against the run report baseline " 
+						+ runReportBaseline + " - first: " + regressions.get(0));
+			}
+			ConsoleUtil.println("No regressions of more than " + threshold + "% against the run report baseline " + runReportBaseline);
+		}
+	}
+	
+	/**
+	 * The UUID context for this conversion - which {@link #execute()} configures from the UUID debug parameters.  By default, this 
+	 * is the shared default context behind the static {@link ConverterUUID} methods.  Loaders which may run concurrently with other 
+	 * loaders in the same JVM should override this to return a new {@link ConverterUUIDContext} - and pass {@link #uuidContext_} to 
+	 * their EConceptUtility and PropertyType constructors.
+	 */
+	protected ConverterUUIDContext createUUIDContext()
+	{
+		return ConverterUUID.getDefaultContext();
 	}
 	
 	private boolean notEmpty(List<String> item)
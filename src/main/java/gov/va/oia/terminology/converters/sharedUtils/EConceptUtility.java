@@ -26,9 +26,11 @@ import gov.va.oia.terminology.converters.sharedUtils.propertyTypes.Property;
 import gov.va.oia.terminology.converters.sharedUtils.propertyTypes.PropertyType;
 import gov.va.oia.terminology.converters.sharedUtils.propertyTypes.ValuePropertyPair;
 import gov.va.oia.terminology.converters.sharedUtils.stats.ConverterUUID;
+import gov.va.oia.terminology.converters.sharedUtils.stats.ConverterUUIDContext;
 import gov.va.oia.terminology.converters.sharedUtils.stats.LoadStats;
+import gov.va.oia.terminology.converters.sharedUtils.stats.LoadStats.Stage;
 import java.beans.PropertyVetoException;
-import java.io.DataOutputStream;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.security.NoSuchAlgorithmException;
@@ -38,7 +40,10 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 import org.apache.commons.lang.StringUtils;
 import org.ihtsdo.otf.mojo.GenerateMetadataEConcepts;
@@ -102,9 +107,18 @@ public class EConceptUtility
 	public final long defaultTime_;
 	private final String lang_ = "en";
 	private UUID terminologyPathUUID_ = workbenchAuxilary;  //start with this.
-	private HashMap<UUID, RefexDynamicColumnInfo[]> refexAllowedColumnTypes_ = new HashMap<>();;
+	private ConcurrentHashMap<UUID, RefexDynamicColumnValidator> refexColumnValidators_ = new ConcurrentHashMap<>();  //read by concept validation, on writer threads
 
-	private LoadStats ls_ = new LoadStats();
+	private final ConverterUUIDContext uuidContext_;
+	private LoadStats ls_;
+	private static final int MAX_CACHED_ORIGIN_LABELS = 10000;  //a bound on the type and refset labels (and counters) cached - not expected to be reached
+	private final ConcurrentHashMap<UUID, String> originLabels_ = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<UUID, String> metadataLabels_ = new ConcurrentHashMap<>();  //fallback labels, for when creation strings aren't kept
+	//load stats counters, resolved once per distinct type / refset combination - cleared with the load stats
+	private final CounterCache descriptionCounters_ = new CounterCache();
+	private final CounterCache relationshipCounters_ = new CounterCache();
+	private final CounterCache annotationCounters_ = new CounterCache();
+	private final CounterCache refsetMemberCounters_ = new CounterCache();
 
 	/**
 	 * Creates and stores the path concept - sets up the various namespace details.
@@ -114,24 +128,43 @@ public class EConceptUtility
 	 * @param dos - location to write the output
 	 * @throws Exception
 	 */
-	public EConceptUtility(String namespaceSeed, String pathName, DataOutputStream dos, long defaultTime) throws Exception
+	public EConceptUtility(String namespaceSeed, String pathName, DataOutput dos, long defaultTime) throws Exception
 	{
-		ConverterUUID.addMapping("isA", isARelUuid_);
-		ConverterUUID.addMapping("Synonym", synonymUuid_);
-		ConverterUUID.addMapping("Fully Specified Name", fullySpecifiedNameUuid_);
-		ConverterUUID.addMapping("US English Refset", usEnRefsetUuid_);
-		ConverterUUID.addMapping("Path reference set", pathRefSetUUID_);
-		ConverterUUID.addMapping("Path origin reference set", pathOriginRefSetUUID_);
+		this(ConverterUUID.getDefaultContext(), namespaceSeed, pathName, dos, defaultTime);
+	}
+
+	/**
+	 * Creates and stores the path concept - sets up the various namespace details.
+	 * @param uuidContext - the context to generate the UUIDs in - pass a new {@link ConverterUUIDContext} to keep this conversion 
+	 * isolated from any other conversion running in the same JVM.  The PropertyTypes of this conversion should be constructed with
+	 * the same context.
+	 * @param namespaceSeed The string to use for seeding the UUID generator for this namespace
+	 * @param pathName The name to use for the concept that will be created as the 'path' concept
+	 * @param defaultTime - the timestamp to place on created elements, when no other timestamp is specified on the element itself.
+	 * @param dos - location to write the output
+	 * @throws Exception
+	 */
+	public EConceptUtility(ConverterUUIDContext uuidContext, String namespaceSeed, String pathName, DataOutput dos, long defaultTime) throws Exception
+	{
+		uuidContext_ = uuidContext;
+		ls_ = new LoadStats(uuidContext_);
+		
+		addWellKnownMapping("isA", isARelUuid_);
+		addWellKnownMapping("Synonym", synonymUuid_);
+		addWellKnownMapping("Fully Specified Name", fullySpecifiedNameUuid_);
+		addWellKnownMapping("US English Refset", usEnRefsetUuid_);
+		addWellKnownMapping("Path reference set", pathRefSetUUID_);
+		addWellKnownMapping("Path origin reference set", pathOriginRefSetUUID_);
 		
 		defaultTime_ = defaultTime;
 		
-		UUID namespace = ConverterUUID.createNamespaceUUIDFromString(null, namespaceSeed);
-		ConverterUUID.configureNamespace(namespace);
+		UUID namespace = uuidContext_.createNamespaceUUIDFromString(null, namespaceSeed);
+		uuidContext_.configureNamespace(namespace);
 		
 		//Start our creating our path concept, by hanging it under path/release
 		//Note, this concept gets created on WorkbenchAuxiliary path.
 		//need to gen the UUID on the special namespace, so it can be targeted from assembly pom
-		TtkConceptChronicle c = createConcept(ConverterUUID.createNamespaceUUIDFromString(UuidT5Generator.PATH_ID_FROM_FS_DESC, pathName), pathName, pathReleaseUUID_);  
+		TtkConceptChronicle c = createConcept(uuidContext_.createNamespaceUUIDFromString(UuidT5Generator.PATH_ID_FROM_FS_DESC, pathName), pathName, pathReleaseUUID_);  
 		addDescription(c, pathName, DescriptionType.SYNONYM, true, null, null, Status.ACTIVE);  //Need a synonym as well, to be able to target from assembly pom
 		c.writeExternal(dos);
 		
@@ -156,7 +189,7 @@ public class EConceptUtility
 	 */
 	public TtkConceptChronicle createConcept(String preferredDescription)
 	{
-		return createConcept(ConverterUUID.createNamespaceUUIDFromString(preferredDescription), preferredDescription);
+		return createConcept(uuidContext_.createNamespaceUUIDFromString(preferredDescription), preferredDescription);
 	}
 
 	/**
@@ -215,6 +248,7 @@ public class EConceptUtility
 	 */
 	public TtkConceptChronicle createConcept(UUID conceptPrimordialUuid, Long time, Status status)
 	{
+		long start = System.nanoTime();
 		TtkConceptChronicle TtkConceptChronicle = new TtkConceptChronicleWrapper(this);
 		TtkConceptChronicle.setPrimordialUuid(conceptPrimordialUuid);
 		TtkConceptAttributesChronicle conceptAttributes = new TtkConceptAttributesChronicle();
@@ -223,6 +257,7 @@ public class EConceptUtility
 		setRevisionAttributes(conceptAttributes, status, time);
 		TtkConceptChronicle.setConceptAttributes(conceptAttributes);
 		ls_.addConcept();
+		ls_.addStageTime(Stage.CONCEPT, start);
 		return TtkConceptChronicle;
 	}
 	
@@ -367,6 +402,7 @@ public class EConceptUtility
 	public TtkDescriptionChronicle addDescription(TtkConceptChronicle ttkConceptChronicle, UUID descriptionPrimordialUUID, String descriptionValue, 
 			DescriptionType wbDescriptionType, boolean preferred, UUID sourceDescriptionTypeUUID, UUID sourceDescriptionRefsetUUID, Status status)
 	{
+		long start = System.nanoTime();
 		List<TtkDescriptionChronicle> descriptions = ttkConceptChronicle.getDescriptions();
 		if (descriptions == null)
 		{
@@ -378,8 +414,8 @@ public class EConceptUtility
 		description.setLang(lang_);
 		if (descriptionPrimordialUUID == null)
 		{
-			descriptionPrimordialUUID = ConverterUUID.createNamespaceUUIDFromStrings(ttkConceptChronicle.getPrimordialUuid().toString(), descriptionValue, 
-					wbDescriptionType.name(), preferred + "", (sourceDescriptionTypeUUID == null ? null : sourceDescriptionTypeUUID.toString()));
+			descriptionPrimordialUUID = uuidContext_.uuidBuilder().add(ttkConceptChronicle.getPrimordialUuid()).add(descriptionValue)
+					.add(wbDescriptionType).add(preferred).add(sourceDescriptionTypeUUID).create();
 		}
 		description.setPrimordialComponentUuid(descriptionPrimordialUUID);
 		UUID descriptionTypeUuid = null;
@@ -406,6 +442,10 @@ public class EConceptUtility
 		descriptions.add(description);
 		//Add the en-us info
 		addLegacyUuidAnnotation(description, null, (preferred ? descriptionPreferredUuid_ : descriptionAcceptableUuid_), usEnRefsetUuid_, Status.ACTIVE, null);
+		if (ttkConceptChronicle instanceof TtkConceptChronicleWrapper)
+		{
+			((TtkConceptChronicleWrapper) ttkConceptChronicle).descriptionAdded(description, wbDescriptionType, preferred);
+		}
 		
 		if (sourceDescriptionRefsetUUID != null)
 		{
@@ -420,9 +460,17 @@ public class EConceptUtility
 			}
 		}
 		
-		ls_.addDescription(wbDescriptionType.name() + (sourceDescriptionTypeUUID == null ? (sourceDescriptionRefsetUUID == null ? "" : ":-member-:") :
-				":" + getOriginStringForUuid(sourceDescriptionTypeUUID) + ":")
-					+ (sourceDescriptionRefsetUUID == null ? "" : getOriginStringForUuid(sourceDescriptionRefsetUUID)));
+		LongAdder counter = descriptionCounters_.get(wbDescriptionType, sourceDescriptionTypeUUID, sourceDescriptionRefsetUUID);
+		if (counter == null)
+		{
+			String typeLabel = (sourceDescriptionTypeUUID == null ? null : getLabelForUuid(sourceDescriptionTypeUUID));
+			String refsetLabel = (sourceDescriptionRefsetUUID == null ? null : getLabelForUuid(sourceDescriptionRefsetUUID));
+			counter = ls_.getDescriptionCounter(wbDescriptionType.name() + (typeLabel == null ? (refsetLabel == null ? "" : ":-member-:") :
+				":" + typeLabel + ":") + (refsetLabel == null ? "" : refsetLabel));
+			cacheCounter(descriptionCounters_, wbDescriptionType, sourceDescriptionTypeUUID, sourceDescriptionRefsetUUID, counter, typeLabel, refsetLabel);
+		}
+		counter.increment();
+		ls_.addStageTime(Stage.DESCRIPTION, start);
 		return description;
 	}
 	
@@ -488,6 +536,7 @@ public class EConceptUtility
 	public TtkRefexDynamicMemberChronicle addAnnotation(TtkComponentChronicle<?> component, UUID uuidForCreatedAnnotation, TtkRefexDynamicData[] values, 
 			UUID refexDynamicTypeUuid, Status status, Long time)
 	{
+		long start = System.nanoTime();
 		List<TtkRefexDynamicMemberChronicle> annotations = component.getAnnotationsDynamic();
 		if (annotations == null)
 		{
@@ -505,9 +554,9 @@ public class EConceptUtility
 		{
 			try
 			{
-				String hashValue = GenerateMetadataEConcepts.setUUIDForRefex(annotation, values, ConverterUUID.getNamespace());
+				String hashValue = GenerateMetadataEConcepts.setUUIDForRefex(annotation, values, uuidContext_.getNamespace());
 			
-			ConverterUUID.addMapping(hashValue, annotation.getPrimordialComponentUuid());
+			uuidContext_.addMapping(hashValue, annotation.getPrimordialComponentUuid());
 			}
 			catch (NoSuchAlgorithmException | UnsupportedEncodingException e)
 			{
@@ -521,49 +570,25 @@ public class EConceptUtility
 		
 		setRevisionAttributes(annotation, status, (time == null ? component.getTime() : time));
 		annotations.add(annotation);
-		annotationLoadStats(component, refexDynamicTypeUuid);
+		annotationLoadStats(component, refexDynamicTypeUuid, start);
 		return annotation;
 	}
 
 	/**
-	 * @param refexDynamicTypeUuid
-	 * @param values
+	 * Check the values against the columns of the dynamic refex - see {@link RefexDynamicColumnValidator}
 	 */
 	private void validateDataTypes(UUID refexDynamicTypeUuid, TtkRefexDynamicData[] values)
 	{
-		//TODO this should be a much better validator - checking all of the various things in RefexDynamicCAB.validateData - or in 
-		//generateMetadataEConcepts
-		if (values != null && values.length > 0)
+		RefexDynamicColumnValidator validator = refexColumnValidators_.get(refexDynamicTypeUuid);
+		if (validator == null || validator.getColumnCount() == 0)
 		{
-			RefexDynamicColumnInfo[] colInfo = refexAllowedColumnTypes_.get(refexDynamicTypeUuid);
-			if (colInfo == null || colInfo.length == 0)
+			if (values != null && values.length > 0)
 			{
 				throw new RuntimeException("Attempted to store data on a concept not configured as a dynamic refex");
 			}
-			for (int i = 0; i < values.length; i++)
-			{
-				RefexDynamicColumnInfo column = null;
-				for (RefexDynamicColumnInfo x : colInfo)
-				{
-					if(x.getColumnOrder() == i)
-					{
-						column = x;
-						break;
-					}
-				}
-				if (column == null)
-				{
-					throw new RuntimeException("Column count mismatch");
-				}
-				else
-				{
-					if (column.getColumnDataType() != values[i].getRefexDataType())
-					{
-						throw new RuntimeException("Datatype mismatch - " + column.getColumnDataType() + " - " + values[i].getRefexDataType());
-					}
-				}
-			}
+			return;
 		}
+		validator.validate(values);
 	}
 
 	/**
@@ -612,6 +637,7 @@ public class EConceptUtility
 	private TtkRefexUuidMemberChronicle addLegacyUuidAnnotation(TtkComponentChronicle<?> component, UUID annotationPrimordialUuid, UUID valueConcept, UUID refsetUuid, 
 			Status status, Long time)
 	{
+		long start = System.nanoTime();
 		List<TtkRefexAbstractMemberChronicle<?>> annotations = component.getAnnotations();
 
 		if (annotations == null)
@@ -625,8 +651,8 @@ public class EConceptUtility
 		conceptRefexMember.setComponentUuid(component.getPrimordialComponentUuid());
 		if (annotationPrimordialUuid == null)
 		{
-			annotationPrimordialUuid = ConverterUUID.createNamespaceUUIDFromStrings(component.getPrimordialComponentUuid().toString(), 
-					(valueConcept == null ? refsetMemberTypeNormalMemberUuid_ : valueConcept).toString(), refsetUuid.toString());
+			annotationPrimordialUuid = uuidContext_.uuidBuilder().add(component.getPrimordialComponentUuid())
+					.add(valueConcept == null ? refsetMemberTypeNormalMemberUuid_ : valueConcept).add(refsetUuid).create();
 		}
 		conceptRefexMember.setPrimordialComponentUuid(annotationPrimordialUuid);
 		conceptRefexMember.setUuid1(valueConcept == null ? refsetMemberTypeNormalMemberUuid_ : valueConcept);
@@ -635,44 +661,60 @@ public class EConceptUtility
 
 		annotations.add(conceptRefexMember);
 
-		annotationLoadStats(component, refsetUuid);
+		annotationLoadStats(component, refsetUuid, start);
 		return conceptRefexMember;
 	}
 
-	private void annotationLoadStats(TtkComponentChronicle<?> component, UUID refsetUuid)
+	private void annotationLoadStats(TtkComponentChronicle<?> component, UUID refsetUuid, long start)
 	{
+		Object annotated;
 		if (component instanceof TtkConceptAttributesChronicle)
 		{
-			ls_.addAnnotation("Concept", getOriginStringForUuid(refsetUuid));
+			annotated = "Concept";
 		}
 		else if (component instanceof TtkDescriptionChronicle)
 		{
-			ls_.addAnnotation("Description", getOriginStringForUuid(refsetUuid));
+			annotated = "Description";
 		}
 		else if (component instanceof TtkRelationshipChronicle)
 		{
-			ls_.addAnnotation(getOriginStringForUuid(((TtkRelationshipChronicle) component).getTypeUuid()), getOriginStringForUuid(refsetUuid));
+			annotated = ((TtkRelationshipChronicle) component).getTypeUuid();
 		}
 		else if (component instanceof TtkRefexStringMemberChronicle)
 		{
-			ls_.addAnnotation(getOriginStringForUuid(((TtkRefexStringMemberChronicle) component).getRefexExtensionUuid()), getOriginStringForUuid(refsetUuid));
+			annotated = ((TtkRefexStringMemberChronicle) component).getRefexExtensionUuid();
 		}
 		else if (component instanceof TtkRefexUuidMemberChronicle)
 		{
-			ls_.addAnnotation(getOriginStringForUuid(((TtkRefexUuidMemberChronicle) component).getRefexExtensionUuid()), getOriginStringForUuid(refsetUuid));
+			annotated = ((TtkRefexUuidMemberChronicle) component).getRefexExtensionUuid();
 		}
 		else if (component instanceof TtkRefexDynamicMemberChronicle)
 		{
-			ls_.addAnnotation(getOriginStringForUuid(((TtkRefexDynamicMemberChronicle) component).getRefexAssemblageUuid()), getOriginStringForUuid(refsetUuid));
+			annotated = ((TtkRefexDynamicMemberChronicle) component).getRefexAssemblageUuid();
 		}
 		else
 		{
-			ls_.addAnnotation(getOriginStringForUuid(component.getPrimordialComponentUuid()), getOriginStringForUuid(refsetUuid));
+			//keyed by the individual component - not worth caching a counter for
+			ls_.addAnnotation(getOriginStringForUuid(component.getPrimordialComponentUuid()), getLabelForUuid(refsetUuid));
+			ls_.addStageTime(Stage.ANNOTATION, start);
+			return;
+		}
+		
+		LongAdder counter = annotationCounters_.get(annotated, refsetUuid, null);
+		if (counter == null)
+		{
+			String annotatedLabel = (annotated instanceof String ? (String) annotated : getLabelForUuid((UUID) annotated));
+			String refsetLabel = getLabelForUuid(refsetUuid);
+			counter = ls_.getAnnotationCounter(annotatedLabel, refsetLabel);
+			cacheCounter(annotationCounters_, annotated, refsetUuid, null, counter, annotatedLabel, refsetLabel);
 		}
+		counter.increment();
+		ls_.addStageTime(Stage.ANNOTATION, start);
 	}
 	
 	public TtkRefexDynamicMemberChronicle addDynamicRefsetMember(TtkConceptChronicle refsetConcept, UUID targetUuid, UUID uuidForCreatedAnnotation, Status status, Long time)
 	{
+		long start = System.nanoTime();
 		List<TtkRefexDynamicMemberChronicle> members = refsetConcept.getRefsetMembersDynamic();
 		if (members == null)
 		{
@@ -690,9 +732,9 @@ public class EConceptUtility
 		{
 			try
 			{
-				String hashValue = GenerateMetadataEConcepts.setUUIDForRefex(member, null, ConverterUUID.getNamespace());
+				String hashValue = GenerateMetadataEConcepts.setUUIDForRefex(member, null, uuidContext_.getNamespace());
 			
-			ConverterUUID.addMapping(hashValue, member.getPrimordialComponentUuid());
+			uuidContext_.addMapping(hashValue, member.getPrimordialComponentUuid());
 			}
 			catch (NoSuchAlgorithmException | UnsupportedEncodingException e)
 			{
@@ -706,7 +748,7 @@ public class EConceptUtility
 		
 		setRevisionAttributes(member, status, (time == null ? refsetConcept.getConceptAttributes().getTime() : time));
 		members.add(member);
-		ls_.addRefsetMember(getOriginStringForUuid(refsetConcept.getPrimordialUuid()));
+		refsetMemberLoadStats(refsetConcept.getPrimordialUuid(), start);
 		return member;
 	}
 
@@ -718,6 +760,7 @@ public class EConceptUtility
 	private TtkRefexUuidMemberChronicle addLegacyRefsetMember(TtkConceptChronicle refsetConcept, UUID targetUuid, UUID refsetMemberType, UUID refsetMemberPrimordial, 
 			Status status, Long time)
 	{
+		long start = System.nanoTime();
 		List<TtkRefexAbstractMemberChronicle<?>> refsetMembers = refsetConcept.getRefsetMembers();
 		if (refsetMembers == null)
 		{
@@ -733,8 +776,8 @@ public class EConceptUtility
 		TtkRefexUuidMemberChronicle refsetMember = new TtkRefexUuidMemberChronicle();
 		if (refsetMemberPrimordial == null)
 		{
-			refsetMemberPrimordial = ConverterUUID.createNamespaceUUIDFromStrings(refsetConcept.getPrimordialUuid().toString(), 
-					targetUuid.toString(), (refsetMemberType == null ? refsetMemberTypeNormalMemberUuid_.toString() : refsetMemberType.toString()));
+			refsetMemberPrimordial = uuidContext_.uuidBuilder().add(refsetConcept.getPrimordialUuid()).add(targetUuid)
+					.add(refsetMemberType == null ? refsetMemberTypeNormalMemberUuid_ : refsetMemberType).create();
 		}
 		refsetMember.setPrimordialComponentUuid(refsetMemberPrimordial);
 		refsetMember.setComponentUuid(targetUuid);  // ComponentUuid and refsetUuid seem like they are reversed at first glance, but this is right.
@@ -743,7 +786,7 @@ public class EConceptUtility
 		setRevisionAttributes(refsetMember, status, (time == null ? refsetConcept.getConceptAttributes().getTime() : time));
 		refsetMembers.add(refsetMember);
 
-		ls_.addRefsetMember(getOriginStringForUuid(refsetConcept.getPrimordialUuid()));
+		refsetMemberLoadStats(refsetConcept.getPrimordialUuid(), start);
 		
 		return refsetMember;
 	}
@@ -755,6 +798,7 @@ public class EConceptUtility
 	private TtkRefexUuidIntMemberChronicle addLegacyRefsetMember(TtkConceptChronicle refsetConcept, UUID targetUuid, UUID refsetMemberType, int refsetMemberIntValue, 
 			Status status, Long time)
 	{
+		long start = System.nanoTime();
 		List<TtkRefexAbstractMemberChronicle<?>> refsetMembers = refsetConcept.getRefsetMembers();
 		if (refsetMembers == null)
 		{
@@ -769,8 +813,8 @@ public class EConceptUtility
 		
 		TtkRefexUuidIntMemberChronicle refsetMember = new TtkRefexUuidIntMemberChronicle();
 		
-		refsetMember.setPrimordialComponentUuid(ConverterUUID.createNamespaceUUIDFromStrings(
-				refsetConcept.getPrimordialUuid().toString(), targetUuid.toString(), refsetMemberIntValue + ""));
+		refsetMember.setPrimordialComponentUuid(uuidContext_.uuidBuilder().add(refsetConcept.getPrimordialUuid()).add(targetUuid)
+				.add(refsetMemberIntValue).create());
 		refsetMember.setComponentUuid(targetUuid);  // ComponentUuid and refsetUuid seem like they are reversed at first glance, but this is right.
 		refsetMember.setRefexExtensionUuid(refsetConcept.getPrimordialUuid());
 		refsetMember.setUuid1(refsetMemberType == null ? refsetMemberTypeNormalMemberUuid_ : refsetMemberType);
@@ -778,7 +822,7 @@ public class EConceptUtility
 		setRevisionAttributes(refsetMember, status, (time == null ? refsetConcept.getConceptAttributes().getTime() : time));
 		refsetMembers.add(refsetMember);
 
-		ls_.addRefsetMember(getOriginStringForUuid(refsetConcept.getPrimordialUuid()));
+		refsetMemberLoadStats(refsetConcept.getPrimordialUuid(), start);
 		
 		return refsetMember;
 	}
@@ -831,6 +875,7 @@ public class EConceptUtility
 	public TtkRelationshipChronicle addRelationship(TtkConceptChronicle TtkConceptChronicle, UUID relPrimordialUuid, UUID targetUuid, UUID relTypeUuid, 
 			UUID sourceRelTypeUUID, UUID sourceRelRefsetUUID, Long time)
 	{
+		long start = System.nanoTime();
 		List<TtkRelationshipChronicle> relationships = TtkConceptChronicle.getRelationships();
 		if (relationships == null)
 		{
@@ -840,8 +885,8 @@ public class EConceptUtility
 
 		TtkRelationshipChronicle rel = new TtkRelationshipChronicle();
 		rel.setPrimordialComponentUuid(relPrimordialUuid != null ? relPrimordialUuid : 
-			ConverterUUID.createNamespaceUUIDFromStrings(TtkConceptChronicle.getPrimordialUuid().toString(), targetUuid.toString(), 
-					(relTypeUuid == null ? isARelUuid_.toString() : relTypeUuid.toString())));
+			uuidContext_.uuidBuilder().add(TtkConceptChronicle.getPrimordialUuid()).add(targetUuid)
+					.add(relTypeUuid == null ? isARelUuid_ : relTypeUuid).create());
 		rel.setC1Uuid(TtkConceptChronicle.getPrimordialUuid());
 		rel.setTypeUuid(relTypeUuid == null ? isARelUuid_ : relTypeUuid);
 		rel.setC2Uuid(targetUuid);
@@ -855,14 +900,53 @@ public class EConceptUtility
 		if (sourceRelTypeUUID != null && sourceRelRefsetUUID != null)
 		{
 			addUuidAnnotation(rel, sourceRelTypeUUID, sourceRelRefsetUUID);
-			ls_.addRelationship(getOriginStringForUuid(relTypeUuid) + ":" + getOriginStringForUuid(sourceRelTypeUUID));
+			relationshipLoadStats(relTypeUuid, sourceRelTypeUUID);
 		}
 		else
 		{
-			ls_.addRelationship(getOriginStringForUuid(relTypeUuid == null ? isARelUuid_ : relTypeUuid));
+			relationshipLoadStats(relTypeUuid == null ? isARelUuid_ : relTypeUuid, null);
 		}
+		ls_.addStageTime(Stage.RELATIONSHIP, start);
 		return rel;
 	}
+	
+	private void relationshipLoadStats(UUID relTypeUuid, UUID sourceRelTypeUUID)
+	{
+		LongAdder counter = relationshipCounters_.get(relTypeUuid, sourceRelTypeUUID, null);
+		if (counter == null)
+		{
+			String typeLabel = getLabelForUuid(relTypeUuid);
+			String sourceTypeLabel = (sourceRelTypeUUID == null ? null : getLabelForUuid(sourceRelTypeUUID));
+			counter = ls_.getRelationshipCounter(sourceTypeLabel == null ? typeLabel : typeLabel + ":" + sourceTypeLabel);
+			cacheCounter(relationshipCounters_, relTypeUuid, sourceRelTypeUUID, null, counter, typeLabel, sourceTypeLabel);
+		}
+		counter.increment();
+	}
+	
+	private void refsetMemberLoadStats(UUID refsetUuid, long start)
+	{
+		LongAdder counter = refsetMemberCounters_.get(refsetUuid, null, null);
+		if (counter == null)
+		{
+			String refsetLabel = getLabelForUuid(refsetUuid);
+			counter = ls_.getRefsetMemberCounter(refsetLabel);
+			cacheCounter(refsetMemberCounters_, refsetUuid, null, null, counter, refsetLabel, null);
+		}
+		counter.increment();
+		ls_.addStageTime(Stage.REFSET_MEMBER, start);
+	}
+	
+	/**
+	 * Keep a resolved load stats counter - unless one of its labels is still "Unknown" (the UUID may be labeled later on, 
+	 * which would change the counter to use)
+	 */
+	private void cacheCounter(CounterCache cache, Object first, UUID second, UUID third, LongAdder counter, String label1, String label2)
+	{
+		if (!"Unknown".equals(label1) && !"Unknown".equals(label2) && cache.size() < MAX_CACHED_ORIGIN_LABELS)
+		{
+			cache.put(first, second, third, counter);
+		}
+	}
 
 	/**
 	 * Set up all the boilerplate stuff.
@@ -880,19 +964,89 @@ public class EConceptUtility
 		object.setTime(time == null ? defaultTime_ : time.longValue());
 	}
 
+	/**
+	 * The label used for a UUID in the load stats - the last ':' delimited part of its creation string, or, if the creation string is 
+	 * not available (the UUID debug map is disabled, or in duplicate detection only mode) the name of the metadata concept created 
+	 * for it, if any.  For the UUID of an individual component - use {@link #getLabelForUuid(UUID)} for type and refset UUIDs.
+	 */
 	private String getOriginStringForUuid(UUID uuid)
 	{
-		String temp = ConverterUUID.getUUIDCreationString(uuid);
-		if (temp != null)
+		if (uuid == null)
 		{
-			String[] parts = temp.split(":");
-			if (parts != null && parts.length > 1)
+			return "Unknown";
+		}
+		String temp = uuidContext_.getUUIDCreationString(uuid);
+		return temp == null ? getMetadataLabel(uuid) : lastSegment(temp);
+	}
+
+	/**
+	 * {@link #getOriginStringForUuid(UUID)} for a type or refset UUID - which are looked up for nearly every component, so the labels 
+	 * resolved from creation strings are cached.
+	 */
+	private String getLabelForUuid(UUID uuid)
+	{
+		if (uuid == null)
+		{
+			return "Unknown";
+		}
+		String label = originLabels_.get(uuid);
+		if (label == null)
+		{
+			String temp = uuidContext_.getUUIDCreationString(uuid);
+			if (temp == null)
+			{
+				return getMetadataLabel(uuid);
+			}
+			label = lastSegment(temp);
+			if (originLabels_.size() < MAX_CACHED_ORIGIN_LABELS)
 			{
-				return parts[parts.length - 1];
+				originLabels_.put(uuid, label);
 			}
-			return temp;
 		}
-		return "Unknown";
+		return label;
+	}
+
+	private String getMetadataLabel(UUID uuid)
+	{
+		String label = metadataLabels_.get(uuid);
+		return label == null ? "Unknown" : label;
+	}
+	
+	/**
+	 * Same result as the last element of value.split(":") (when there is more than one) - without the regex, or the array.
+	 */
+	private static String lastSegment(String value)
+	{
+		int end = value.length();
+		while (end > 0 && value.charAt(end - 1) == ':')
+		{
+			end--;
+		}
+		int start = (end == 0 ? -1 : value.lastIndexOf(':', end - 1));
+		if (start < 0)
+		{
+			return value;
+		}
+		return value.substring(start + 1, end);
+	}
+	
+	private void addWellKnownMapping(String name, UUID uuid)
+	{
+		uuidContext_.addMapping(name, uuid);
+		registerMetadataLabel(uuid, name);
+	}
+	
+	private void registerMetadataLabel(UUID uuid, String label)
+	{
+		if (uuid != null && label != null)
+		{
+			metadataLabels_.putIfAbsent(uuid, label);
+		}
+	}
+
+	public ConverterUUIDContext getUUIDContext()
+	{
+		return uuidContext_;
 	}
 
 	public LoadStats getLoadStats()
@@ -900,24 +1054,34 @@ public class EConceptUtility
 		return ls_;
 	}
 
-	public void clearLoadStats()
+	/**
+	 * Start counting again, with a new {@link LoadStats}.
+	 * @return the load stats that were replaced - which may be {@link LoadStats#merge(LoadStats) merged} with others.
+	 */
+	public LoadStats clearLoadStats()
 	{
-		ls_ = new LoadStats();
+		descriptionCounters_.clear();
+		relationshipCounters_.clear();
+		annotationCounters_.clear();
+		refsetMemberCounters_.clear();
+		LoadStats old = ls_;
+		ls_ = new LoadStats(uuidContext_);
+		return old;
 	}
 
 	/**
 	 * Utility method to build and store a metadata concept.
 	 */
-	public TtkConceptChronicle createAndStoreMetaDataConcept(String name, UUID relParentPrimordial, DataOutputStream dos) throws Exception
+	public TtkConceptChronicle createAndStoreMetaDataConcept(String name, UUID relParentPrimordial, DataOutput dos) throws Exception
 	{
-		return createMetaDataConcept(ConverterUUID.createNamespaceUUIDFromString(name), name, null, null, null, relParentPrimordial, null, null, dos);
+		return createMetaDataConcept(uuidContext_.createNamespaceUUIDFromString(name), name, null, null, null, relParentPrimordial, null, null, dos);
 	}
 
 	/**
 	 * Utility method to build and store a metadata concept.
 	 */
 	public TtkConceptChronicle createAndStoreMetaDataConcept(UUID primordial, String name, UUID relParentPrimordial, Consumer<TtkConceptChronicle> callback,
-			DataOutputStream dos) throws Exception
+			DataOutput dos) throws Exception
 	{
 		return createMetaDataConcept(primordial, name, null, null, null, relParentPrimordial, null, callback, dos);
 	}
@@ -929,9 +1093,10 @@ public class EConceptUtility
 	 * @param secondParent - optional
 	 */
 	public TtkConceptChronicle createMetaDataConcept(UUID primordial, String fsnName, String preferredName, String altName, String definition, 
-			UUID relParentPrimordial, UUID secondParent, Consumer<TtkConceptChronicle> callback, DataOutputStream dos)
+			UUID relParentPrimordial, UUID secondParent, Consumer<TtkConceptChronicle> callback, DataOutput dos)
 			throws Exception
 	{
+		registerMetadataLabel(primordial, fsnName);
 		TtkConceptChronicle concept = createConcept(primordial, fsnName);
 		addRelationship(concept, relParentPrimordial);
 		if (secondParent != null)
@@ -969,7 +1134,7 @@ public class EConceptUtility
 	 * Create metadata TtkConceptChronicles from the PropertyType structure
 	 * NOTE - Refset types are not stored!
 	 */
-	public void loadMetaDataItems(PropertyType propertyType, UUID parentPrimordial, DataOutputStream dos) throws Exception
+	public void loadMetaDataItems(PropertyType propertyType, UUID parentPrimordial, DataOutput dos) throws Exception
 	{
 		ArrayList<PropertyType> propertyTypes = new ArrayList<PropertyType>();
 		propertyTypes.add(propertyType);
@@ -980,7 +1145,7 @@ public class EConceptUtility
 	 * Create metadata TtkConceptChronicles from the PropertyType structure
 	 * NOTE - Refset types are not stored!
 	 */
-	public void loadMetaDataItems(Collection<PropertyType> propertyTypes, UUID parentPrimordial, DataOutputStream dos) throws Exception
+	public void loadMetaDataItems(Collection<PropertyType> propertyTypes, UUID parentPrimordial, DataOutput dos) throws Exception
 	{
 		ArrayList<UUID> typesThatNeedIndexes = new ArrayList<>();
 		ArrayList<Integer[]> columnsThatNeedIndexes = new ArrayList<>();
@@ -990,6 +1155,10 @@ public class EConceptUtility
 			{
 				continue;
 			}
+			if (pt.getUUIDContext() != uuidContext_)
+			{
+				throw new RuntimeException("The property type '" + pt.getPropertyTypeDescription() + "' was constructed with a different UUID context than this EConceptUtility");
+			}
 			createAndStoreMetaDataConcept(pt.getPropertyTypeUUID(), pt.getPropertyTypeDescription(), parentPrimordial, null, dos);
 			UUID secondParent = null;
 			if (pt instanceof BPT_MemberRefsets)
@@ -1029,7 +1198,8 @@ public class EConceptUtility
 					}
 					else
 					{
-						refexAllowedColumnTypes_.put(p.getUUID(), p.getDataColumnsForDynamicRefex());
+						refexColumnValidators_.put(p.getUUID(), new RefexDynamicColumnValidator(p.getUUID(), p.getDataColumnsForDynamicRefex() == null 
+								? new RefexDynamicColumnInfo[0] : p.getDataColumnsForDynamicRefex()));
 						typesThatNeedIndexes.add(p.getUUID());
 						if (p.getDataColumnsForDynamicRefex() != null)
 						{
@@ -1053,7 +1223,7 @@ public class EConceptUtility
 		indexConcept.writeExternal(dos);
 	}
 	
-	public void storeRefsetConcepts(BPT_MemberRefsets refsets, DataOutputStream dos) throws IOException
+	public void storeRefsetConcepts(BPT_MemberRefsets refsets, DataOutput dos) throws IOException
 	{
 		refsets.getRefsetIdentityParent().writeExternal(dos);
 		for (Property p : refsets.getProperties())
@@ -1066,7 +1236,7 @@ public class EConceptUtility
 	/**
 	 * This is just used by the setupWbPropertyMetadata method, which requires the UUIDs to be specified in a certain way.
 	 */
-	private TtkConceptChronicle createMetaDataSpecialConcept(UUID primordial, String fsnName, String preferredName, UUID relParentPrimordial, DataOutputStream dos)
+	private TtkConceptChronicle createMetaDataSpecialConcept(UUID primordial, String fsnName, String preferredName, UUID relParentPrimordial, DataOutput dos)
 			throws Exception
 	{
 		TtkConceptChronicle concept = createConcept(primordial);
@@ -1085,7 +1255,7 @@ public class EConceptUtility
 
 	private HashMap<String, UUID> specialSCTMetadataUuidCache = new HashMap<>();
 	
-	private UUID setupWbPropertyMetadata(String refsetSynonymName, String refsetValueParentSynonynmName, PropertyType pt, DataOutputStream dos) throws Exception
+	private UUID setupWbPropertyMetadata(String refsetSynonymName, String refsetValueParentSynonynmName, PropertyType pt, DataOutput dos) throws Exception
 	{
 		if (pt.getPropertyTypeReferenceSetName() == null || pt.getPropertyTypeReferenceSetUUID() == null)
 		{
@@ -1115,7 +1285,7 @@ public class EConceptUtility
 					GenerateMetadataEConcepts.turnConceptIntoDynamicRefexAssemblageConcept(concept, true, "Carries the source description type information",
 							colInfo,
 							null);
-					refexAllowedColumnTypes_.put(concept.getPrimordialUuid(), colInfo);
+					refexColumnValidators_.put(concept.getPrimordialUuid(), new RefexDynamicColumnValidator(concept.getPrimordialUuid(), colInfo));
 					TtkConceptChronicle indexConcept = GenerateMetadataEConcepts.indexRefex(Arrays.asList(new UUID[] {concept.getPrimordialUuid()}),
 							Arrays.asList(new Integer[][] {new Integer[] {0}}));
 					indexConcept.writeExternal(dos);
@@ -1128,7 +1298,7 @@ public class EConceptUtility
 		};
 		
 		createAndStoreMetaDataConcept(pt.getPropertyTypeReferenceSetUUID(), pt.getPropertyTypeReferenceSetName(), specialSCTMetadataUuidCache.get(refsetSynonymName), callback, dos);
-		ConverterUUID.addMapping(pt.getPropertyTypeReferenceSetName(), pt.getPropertyTypeReferenceSetUUID());
+		uuidContext_.addMapping(pt.getPropertyTypeReferenceSetName(), pt.getPropertyTypeReferenceSetUUID());
 		
 		//TODO we shouldn't have to create this concept in the future - two new concepts have been added to the US extension for this purpose.
 		//Should eventually be changed to "Semantic Description Type" and "Semantic Relationship Type" - so don't create this intermediate concept, 
@@ -1147,7 +1317,115 @@ public class EConceptUtility
 		//Now create the terminology specific refset type as a child - very similar to above, but since this isn't the refset concept, just an organization
 		//concept, I add an 's' to make it plural, and use a different UUID (calculated from the new plural)
 		//I have a case in UMLS and RxNorm loaders where this makes a duplicate, but its ok, it should merge.
-		return createAndStoreMetaDataConcept(ConverterUUID.createNamespaceUUIDFromString(pt.getPropertyTypeReferenceSetName() + "s", true), 
+		return createAndStoreMetaDataConcept(uuidContext_.createNamespaceUUIDFromString(pt.getPropertyTypeReferenceSetName() + "s", true), 
 				pt.getPropertyTypeReferenceSetName() + "s", specialSCTMetadataUuidCache.get(refsetValueParentSynonynmName), null, dos).getPrimordialUuid();
 	}
+
+	/**
+	 * The load stats counters already resolved, by the UUIDs (and type) that they are labeled from - an open addressed table, 
+	 * so that the lookup for each component added allocates nothing (no key object, no varargs hash).  Lookups take no lock - 
+	 * the entries are immutable, and a lookup that misses an entry being added just resolves the counter again.  The table is 
+	 * only written under the lock, and is replaced as a whole when it grows.
+	 */
+	private static final class CounterCache
+	{
+		private volatile Entry[] table_ = new Entry[64];
+		private int size_ = 0;
+
+		private LongAdder get(Object first, UUID second, UUID third)
+		{
+			Entry[] table = table_;
+			int mask = table.length - 1;
+			for (int i = hash(first, second, third) & mask; ; i = (i + 1) & mask)
+			{
+				Entry e = table[i];
+				if (e == null)
+				{
+					return null;
+				}
+				if (e.matches(first, second, third))
+				{
+					return e.counter_;
+				}
+			}
+		}
+
+		private synchronized void put(Object first, UUID second, UUID third, LongAdder counter)
+		{
+			if (get(first, second, third) != null)
+			{
+				return;
+			}
+			Entry[] table = table_;
+			if ((size_ + 1) * 2 > table.length)
+			{
+				Entry[] grown = new Entry[table.length * 2];
+				for (Entry e : table)
+				{
+					if (e != null)
+					{
+						insert(grown, e);
+					}
+				}
+				insert(grown, new Entry(first, second, third, counter));
+				table_ = grown;
+			}
+			else
+			{
+				insert(table, new Entry(first, second, third, counter));
+			}
+			size_++;
+		}
+
+		private synchronized int size()
+		{
+			return size_;
+		}
+
+		private synchronized void clear()
+		{
+			table_ = new Entry[64];
+			size_ = 0;
+		}
+
+		private static void insert(Entry[] table, Entry e)
+		{
+			int mask = table.length - 1;
+			int i = hash(e.first_, e.second_, e.third_) & mask;
+			while (table[i] != null)
+			{
+				i = (i + 1) & mask;
+			}
+			table[i] = e;
+		}
+
+		private static int hash(Object first, UUID second, UUID third)
+		{
+			int h = (first == null ? 0 : first.hashCode());
+			h = h * 31 + (second == null ? 0 : second.hashCode());
+			h = h * 31 + (third == null ? 0 : third.hashCode());
+			return h ^ (h >>> 16);
+		}
+
+		private static final class Entry
+		{
+			private final Object first_;
+			private final UUID second_;
+			private final UUID third_;
+			private final LongAdder counter_;
+
+			private Entry(Object first, UUID second, UUID third, LongAdder counter)
+			{
+				first_ = first;
+				second_ = second;
+				third_ = third;
+				counter_ = counter;
+			}
+
+			private boolean matches(Object first, UUID second, UUID third)
+			{
+				return Objects.equals(first_, first) && Objects.equals(second_, second) && Objects.equals(third_, third);
+			}
+		}
+	}
 }
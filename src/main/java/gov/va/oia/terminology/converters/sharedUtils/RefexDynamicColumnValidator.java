@@ -0,0 +1,124 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.va.oia.terminology.converters.sharedUtils;
+
+import java.util.UUID;
+import org.ihtsdo.otf.tcc.api.refexDynamic.data.RefexDynamicColumnInfo;
+import org.ihtsdo.otf.tcc.api.refexDynamic.data.RefexDynamicDataType;
+import org.ihtsdo.otf.tcc.dto.component.refexDynamic.data.TtkRefexDynamicData;
+
+/**
+ * {@link RefexDynamicColumnValidator}
+ *
+ * The column definitions of a dynamic refex, compiled once (when the refex is set up) into arrays indexed by column order - so 
+ * checking the data of each annotation is a single walk over its values.  Checks that there are no more values than columns, 
+ * that every required column has a value, and that each value is of the type of its column (any type, for a polymorphic column).
+ *
+ * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
+ */
+public class RefexDynamicColumnValidator
+{
+	private final UUID refexUuid_;
+	private final RefexDynamicDataType[] types_;  //by column order - null where there is no column
+	private final boolean[] required_;
+	private final int requiredCount_;
+
+	/**
+	 * @param refexUuid - the dynamic refex the columns belong to
+	 * @param columns - the column definitions - in any order, but each with a distinct column order
+	 */
+	public RefexDynamicColumnValidator(UUID refexUuid, RefexDynamicColumnInfo[] columns)
+	{
+		refexUuid_ = refexUuid;
+		int size = 0;
+		for (RefexDynamicColumnInfo column : columns)
+		{
+			if (column.getColumnOrder() < 0)
+			{
+				throw new RuntimeException("Negative column order " + column.getColumnOrder() + " on the dynamic refex " + refexUuid);
+			}
+			size = Math.max(size, column.getColumnOrder() + 1);
+		}
+		types_ = new RefexDynamicDataType[size];
+		required_ = new boolean[size];
+		int requiredCount = 0;
+		for (RefexDynamicColumnInfo column : columns)
+		{
+			int order = column.getColumnOrder();
+			if (types_[order] != null)
+			{
+				throw new RuntimeException("Duplicate column order " + order + " on the dynamic refex " + refexUuid);
+			}
+			types_[order] = column.getColumnDataType();
+			required_[order] = column.isColumnRequired();
+			if (required_[order])
+			{
+				requiredCount++;
+			}
+		}
+		requiredCount_ = requiredCount;
+	}
+
+	/**
+	 * @param values - the data of an annotation - may be null, or empty, for a refex with no required columns.
+	 * @throws RuntimeException if the values don't fit the columns
+	 */
+	public void validate(TtkRefexDynamicData[] values)
+	{
+		int length = (values == null ? 0 : values.length);
+		if (length > types_.length)
+		{
+			throw new RuntimeException("Column count mismatch - " + length + " values, for the " + types_.length + " columns of the dynamic refex " + refexUuid_);
+		}
+		int required = 0;
+		for (int i = 0; i < length; i++)
+		{
+			RefexDynamicDataType type = types_[i];
+			if (type == null)
+			{
+				throw new RuntimeException("Column count mismatch - the dynamic refex " + refexUuid_ + " has no column " + i);
+			}
+			if (values[i] == null)
+			{
+				if (required_[i])
+				{
+					throw new RuntimeException("No value for the required column " + i + " of the dynamic refex " + refexUuid_);
+				}
+				continue;
+			}
+			if (required_[i])
+			{
+				required++;
+			}
+			if (type != values[i].getRefexDataType() && type != RefexDynamicDataType.POLYMORPHIC)
+			{
+				throw new RuntimeException("Datatype mismatch - " + type + " - " + values[i].getRefexDataType());
+			}
+		}
+		if (required < requiredCount_)
+		{
+			throw new RuntimeException("Column count mismatch - " + length + " values, missing required columns of the dynamic refex " + refexUuid_);
+		}
+	}
+
+	public int getColumnCount()
+	{
+		return types_.length;
+	}
+}
@@ -18,6 +18,8 @@
  */
 package gov.va.oia.terminology.converters.sharedUtils;
 
+import gov.va.oia.terminology.converters.sharedUtils.stats.LoadStats;
+import gov.va.oia.terminology.converters.sharedUtils.stats.LoadStats.Stage;
 import java.io.DataOutput;
 import java.io.IOException;
 import java.util.List;
@@ -39,6 +41,14 @@ public class TtkConceptChronicleWrapper extends TtkConceptChronicle
 {
 	private EConceptUtility econUtil_;
 	
+	//What EConceptUtility.addDescription has added - valid while the description list is the one, and the size, that it left.
+	private List<TtkDescriptionChronicle> trackedDescriptions_ = null;
+	private int trackedCount_ = 0;
+	private boolean untracked_ = false;
+	private TtkDescriptionChronicle preferredFSN_ = null;
+	private boolean havePreferredSynonym_ = false;
+	private boolean haveOtherSynonyms_ = false;
+	
 	public TtkConceptChronicleWrapper(EConceptUtility util)
 	{
 		super();
@@ -51,37 +61,100 @@ public class TtkConceptChronicleWrapper extends TtkConceptChronicle
 	@Override
 	public void writeExternal(DataOutput out) throws IOException
 	{
+		LoadStats ls = econUtil_.getLoadStats();
+		long start = System.nanoTime();
 		validate();
+		ls.addStageTime(Stage.VALIDATE, start);
+		start = System.nanoTime();
 		super.writeExternal(out);
+		ls.addStageTime(Stage.WRITE, start);
 	}
 	
 	
+	/**
+	 * Called by {@link EConceptUtility} as each description is added - so that validation can skip scanning the descriptions for 
+	 * the preferred terms.  If the descriptions are changed by other means, tracking stops, and validation always scans.
+	 */
+	void descriptionAdded(TtkDescriptionChronicle description, EConceptUtility.DescriptionType type, boolean preferred)
+	{
+		List<TtkDescriptionChronicle> descriptions = getDescriptions();
+		if (untracked_ || (trackedDescriptions_ != null && trackedDescriptions_ != descriptions) || descriptions.size() != trackedCount_ + 1)
+		{
+			untracked_ = true;
+			return;
+		}
+		trackedDescriptions_ = descriptions;
+		trackedCount_++;
+		if (type == EConceptUtility.DescriptionType.FSN)
+		{
+			if (preferred && preferredFSN_ == null)
+			{
+				preferredFSN_ = description;
+			}
+		}
+		else if (type == EConceptUtility.DescriptionType.SYNONYM)
+		{
+			if (preferred)
+			{
+				havePreferredSynonym_ = true;
+			}
+			else
+			{
+				haveOtherSynonyms_ = true;
+			}
+		}
+	}
+	
 	private void validate()
 	{
 		boolean havePreferredFSN = false;
 		TtkDescriptionChronicle preferredFSN = null;
 		boolean havePreferredSynonym = false;
-
-		//Check and see if we have a preferred FSN
-		for (TtkDescriptionChronicle d : getDescriptions())
+		
+		if (!untracked_ && getDescriptions() == trackedDescriptions_ && trackedDescriptions_.size() == trackedCount_ && preferredFSN_ != null)
 		{
-			if (havePreferredFSN && havePreferredSynonym)
+			//Everything was added by EConceptUtility.addDescription - so the preferred FSN is known, and only a synonym that the loader 
+			//has marked as preferred itself could be missed.
+			if (havePreferredSynonym_)
 			{
-				break;
+				return;
 			}
-			if (!havePreferredFSN && d.getTypeUuid().equals(EConceptUtility.fullySpecifiedNameUuid_))
+			havePreferredFSN = true;
+			preferredFSN = preferredFSN_;
+			if (haveOtherSynonyms_)
 			{
-				if (isPreferred(d.getAnnotations()))
+				for (TtkDescriptionChronicle d : getDescriptions())
 				{
-					preferredFSN = d;
-					havePreferredFSN = true;
+					if (d.getTypeUuid().equals(EConceptUtility.synonymUuid_) && isPreferred(d.getAnnotations()))
+					{
+						return;
+					}
 				}
 			}
-			else if (!havePreferredSynonym && d.getTypeUuid().equals(EConceptUtility.synonymUuid_))
+		}
+		else
+		{
+			//Check and see if we have a preferred FSN
+			for (TtkDescriptionChronicle d : getDescriptions())
 			{
-				if (isPreferred(d.getAnnotations()))
+				if (havePreferredFSN && havePreferredSynonym)
 				{
-					havePreferredSynonym = true;
+					break;
+				}
+				if (!havePreferredFSN && d.getTypeUuid().equals(EConceptUtility.fullySpecifiedNameUuid_))
+				{
+					if (isPreferred(d.getAnnotations()))
+					{
+						preferredFSN = d;
+						havePreferredFSN = true;
+					}
+				}
+				else if (!havePreferredSynonym && d.getTypeUuid().equals(EConceptUtility.synonymUuid_))
+				{
+					if (isPreferred(d.getAnnotations()))
+					{
+						havePreferredSynonym = true;
+					}
 				}
 			}
 		}
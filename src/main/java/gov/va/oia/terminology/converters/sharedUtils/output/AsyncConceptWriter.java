@@ -0,0 +1,362 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.va.oia.terminology.converters.sharedUtils.output;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.ihtsdo.otf.tcc.dto.TtkConceptChronicle;
+
+/**
+ * {@link AsyncConceptWriter}
+ *
+ * A {@link ConceptWriter} that validates and serializes the concepts on a dedicated background thread, so parsing the source 
+ * content overlaps with the serialization and the I/O.  
+ * 
+ * Concepts are handed over through a bounded queue - when the queue is full, {@link #write(TtkConceptChronicle)} blocks until 
+ * the writer catches up, which bounds the memory held by concepts waiting to be written.  If writing a concept fails, the 
+ * failure is rethrown (as an IOException) from the next call to write, flush or close, and nothing more is written.
+ * 
+ * Code that writes to the output stream itself (such as the EConceptUtility metadata methods) must use 
+ * {@link #getDataOutputStream()} rather than the underlying stream - writes through it are ordered after all of the concepts 
+ * already passed to {@link #write(TtkConceptChronicle)} by the same thread.  They are buffered, so they only wait for the queued 
+ * concepts when the buffer is written out.
+ *
+ * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
+ */
+public class AsyncConceptWriter implements ConceptWriter
+{
+	public static final int DEFAULT_QUEUE_SIZE = 1000;
+	private static final Object CLOSE = new Object();
+	private static final long POLL_MILLIS = 100;
+
+	private final ArrayBlockingQueue<Object> queue_;
+	private final CountingOutputStream counter_;
+	private final DataOutputStream out_;  //only written by the writer thread, or under lock_
+	private final OrderedOutputStream ordered_ = new OrderedOutputStream();
+	private final DataOutputStream direct_ = new DataOutputStream(ordered_);
+	private final Object lock_ = new Object();
+	private final Thread thread_;
+	private final AtomicLong submitted_ = new AtomicLong();
+	private volatile long written_ = 0;
+	private volatile Throwable failure_ = null;
+	private volatile boolean closed_ = false;
+
+	/**
+	 * @param out - the output - closed when this writer is closed.
+	 */
+	public AsyncConceptWriter(OutputStream out)
+	{
+		this(out, DEFAULT_QUEUE_SIZE);
+	}
+
+	/**
+	 * @param out - the output - closed when this writer is closed.
+	 * @param queueSize - the number of concepts that may be waiting to be written, before {@link #write(TtkConceptChronicle)} blocks.
+	 */
+	public AsyncConceptWriter(OutputStream out, int queueSize)
+	{
+		queue_ = new ArrayBlockingQueue<>(queueSize);
+		counter_ = new CountingOutputStream(out);
+		out_ = new DataOutputStream(counter_);
+		thread_ = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				writeQueued();
+			}
+		}, "AsyncConceptWriter");
+		thread_.setDaemon(true);
+		thread_.start();
+	}
+
+	@Override
+	public void write(TtkConceptChronicle concept) throws IOException
+	{
+		checkState();
+		ordered_.drain();
+		submitted_.incrementAndGet();
+		put(concept);
+	}
+
+	/**
+	 * @return an output stream for code that writes to the output itself - see the class description.  Closing it closes this writer.
+	 */
+	public DataOutputStream getDataOutputStream()
+	{
+		return direct_;
+	}
+
+	@Override
+	public void flush() throws IOException
+	{
+		checkState();
+		ordered_.drain();
+		barrier(true);
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		if (closed_)
+		{
+			return;
+		}
+		closed_ = true;
+		try
+		{
+			if (failure_ == null)
+			{
+				ordered_.drain();
+				put(CLOSE);
+				thread_.join();
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted waiting for the concept writer to finish");
+		}
+		finally
+		{
+			synchronized (lock_)
+			{
+				out_.close();
+			}
+		}
+		checkFailure();
+	}
+
+	@Override
+	public boolean isClosed()
+	{
+		return closed_;
+	}
+
+	@Override
+	public long getBytesWritten()
+	{
+		return counter_.getCount();
+	}
+
+	/**
+	 * @return the number of concepts waiting to be written
+	 */
+	public int getQueuedCount()
+	{
+		return queue_.size();
+	}
+
+	private void writeQueued()
+	{
+		try
+		{
+			while (true)
+			{
+				Object item = queue_.take();
+				if (item == CLOSE)
+				{
+					return;
+				}
+				else if (item instanceof Flush)
+				{
+					if (((Flush) item).flushOutput_)
+					{
+						synchronized (lock_)
+						{
+							out_.flush();
+						}
+					}
+					((Flush) item).done_.countDown();
+				}
+				else
+				{
+					synchronized (lock_)
+					{
+						((TtkConceptChronicle) item).writeExternal(out_);
+					}
+					written_++;
+				}
+			}
+		}
+		catch (Throwable t)
+		{
+			failure_ = t;
+			//release anyone waiting on a flush - they will see the failure
+			Object item;
+			while ((item = queue_.poll()) != null)
+			{
+				if (item instanceof Flush)
+				{
+					((Flush) item).done_.countDown();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Queue an item - waiting for space, unless the writer fails in the mean time.
+	 */
+	private void put(Object item) throws IOException
+	{
+		try
+		{
+			while (!queue_.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS))
+			{
+				checkFailure();
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted waiting to queue a concept for writing");
+		}
+	}
+
+	/**
+	 * Wait until everything queued so far has been written.
+	 */
+	private void barrier(boolean flushOutput) throws IOException
+	{
+		Flush flush = new Flush(flushOutput);
+		put(flush);
+		try
+		{
+			while (!flush.done_.await(POLL_MILLIS, TimeUnit.MILLISECONDS))
+			{
+				checkFailure();
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted waiting for the concept writer");
+		}
+		checkFailure();
+	}
+
+	private void checkState() throws IOException
+	{
+		checkFailure();
+		if (closed_)
+		{
+			throw new IOException("The concept writer is closed");
+		}
+	}
+
+	private void checkFailure() throws IOException
+	{
+		Throwable failure = failure_;
+		if (failure != null)
+		{
+			throw new IOException("Writing a concept failed: " + failure, failure);
+		}
+	}
+
+	private static class Flush
+	{
+		private final boolean flushOutput_;
+		private final CountDownLatch done_ = new CountDownLatch(1);
+
+		private Flush(boolean flushOutput)
+		{
+			flushOutput_ = flushOutput;
+		}
+	}
+
+	/**
+	 * Buffers the writes to the output - they are written (after waiting for the concepts already queued to be written) when the 
+	 * buffer fills, and before the next concept is queued, or on flush or close.
+	 */
+	private class OrderedOutputStream extends OutputStream
+	{
+		private final byte[] bytes_ = new byte[8192];
+		private int count_ = 0;
+
+		private synchronized void drain() throws IOException
+		{
+			if (count_ > 0)
+			{
+				writeThrough(bytes_, 0, count_);
+				count_ = 0;
+			}
+		}
+
+		private void writeThrough(byte[] b, int off, int len) throws IOException
+		{
+			checkFailure();
+			if (submitted_.get() != written_)
+			{
+				barrier(false);
+			}
+			synchronized (lock_)
+			{
+				out_.write(b, off, len);
+			}
+		}
+
+		@Override
+		public synchronized void write(int b) throws IOException
+		{
+			checkState();
+			if (count_ == bytes_.length)
+			{
+				drain();
+			}
+			bytes_[count_++] = (byte) b;
+		}
+
+		@Override
+		public synchronized void write(byte[] b, int off, int len) throws IOException
+		{
+			checkState();
+			if (len > bytes_.length - count_)
+			{
+				drain();
+			}
+			if (len > bytes_.length)
+			{
+				writeThrough(b, off, len);
+			}
+			else
+			{
+				System.arraycopy(b, off, bytes_, count_, len);
+				count_ += len;
+			}
+		}
+
+		@Override
+		public void flush() throws IOException
+		{
+			AsyncConceptWriter.this.flush();
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			AsyncConceptWriter.this.close();
+		}
+	}
+}
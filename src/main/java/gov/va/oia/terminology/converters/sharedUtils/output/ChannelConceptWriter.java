@@ -0,0 +1,92 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.va.oia.terminology.converters.sharedUtils.output;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import org.ihtsdo.otf.tcc.dto.TtkConceptChronicle;
+
+/**
+ * {@link ChannelConceptWriter}
+ *
+ * A {@link ConceptWriter} that serializes each concept on the calling thread, straight into a {@link ChannelDataOutput}.
+ *
+ * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
+ */
+public class ChannelConceptWriter implements ConceptWriter
+{
+	private final ChannelDataOutput out_;
+	private final DataOutputStream direct_;
+
+	/**
+	 * @param out - the output - closed when this writer is closed.
+	 */
+	public ChannelConceptWriter(ChannelDataOutput out)
+	{
+		out_ = out;
+		direct_ = new DataOutputStream(out);
+	}
+
+	@Override
+	public void write(TtkConceptChronicle concept) throws IOException
+	{
+		concept.writeExternal(out_);
+	}
+
+	/**
+	 * @return the output, for code that needs to write to a stream itself
+	 */
+	public DataOutputStream getDataOutputStream()
+	{
+		return direct_;
+	}
+
+	/**
+	 * @return the output, for code that writes to a {@link java.io.DataOutput} itself - preferable, as it avoids the per byte 
+	 *     stream calls
+	 */
+	public ChannelDataOutput getDataOutput()
+	{
+		return out_;
+	}
+
+	@Override
+	public void flush() throws IOException
+	{
+		out_.flush();
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		out_.close();
+	}
+
+	@Override
+	public boolean isClosed()
+	{
+		return out_.isClosed();
+	}
+
+	@Override
+	public long getBytesWritten()
+	{
+		return out_.getBytesWritten();
+	}
+}
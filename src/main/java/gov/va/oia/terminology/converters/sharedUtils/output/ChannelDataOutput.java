@@ -0,0 +1,331 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.va.oia.terminology.converters.sharedUtils.output;
+
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * {@link ChannelDataOutput}
+ *
+ * A {@link DataOutput} that encodes straight into a large {@link ByteBuffer} - rather than passing each byte of each primitive 
+ * through the (synchronized) write methods of a {@link java.io.DataOutputStream} over a {@link java.io.BufferedOutputStream}.  
+ * The bytes written are identical to those of a DataOutputStream.
+ * 
+ * In the default mode, the buffer is a direct buffer, which is written out through a {@link FileChannel} as it fills.  In mapped 
+ * mode, the file is instead written through a series of memory mapped regions, leaving the writes to the OS - the file is 
+ * extended a region at a time, and truncated to the written size on {@link #close()} (so a file that is never closed may have 
+ * trailing zeros).
+ * 
+ * It is also an {@link OutputStream}, so it can sit under code that needs a stream.  Not thread safe.
+ *
+ * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
+ */
+public class ChannelDataOutput extends OutputStream implements DataOutput
+{
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+	public static final int DEFAULT_MAP_SIZE = 64 << 20;
+
+	private final FileChannel channel_;
+	private final boolean mapped_;
+	private final int size_;
+	private final long start_;
+	private ByteBuffer buffer_;
+	private long bufferStart_;  //the file position of the start of buffer_
+	private boolean closed_ = false;
+
+	/**
+	 * Create (or replace) the file, and open it for writing.
+	 * @param mapped - true to write through memory mapped regions, rather than a direct buffer.
+	 */
+	public static ChannelDataOutput open(File file, boolean mapped) throws IOException
+	{
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try
+		{
+			raf.setLength(0);
+			return new ChannelDataOutput(raf.getChannel(), mapped, mapped ? DEFAULT_MAP_SIZE : DEFAULT_BUFFER_SIZE);
+		}
+		catch (IOException | RuntimeException e)
+		{
+			raf.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @param channel - where to write, starting at its current position.  It is closed when this is closed.  Mapped mode 
+	 *     requires a channel that is open for reading as well as writing.
+	 * @param mapped - true to write through memory mapped regions, rather than a direct buffer.
+	 * @param size - the size of the buffer, or of each mapped region
+	 */
+	public ChannelDataOutput(FileChannel channel, boolean mapped, int size) throws IOException
+	{
+		if (size < 8)
+		{
+			throw new IllegalArgumentException("The buffer size must be at least 8");
+		}
+		channel_ = channel;
+		mapped_ = mapped;
+		size_ = size;
+		start_ = channel.position();
+		bufferStart_ = start_;
+		buffer_ = mapped ? channel.map(FileChannel.MapMode.READ_WRITE, bufferStart_, size) : ByteBuffer.allocateDirect(size);
+	}
+
+	/**
+	 * @return the number of bytes written so far
+	 */
+	public long getBytesWritten()
+	{
+		return bufferStart_ + buffer_.position() - start_;
+	}
+
+	@Override
+	public void write(int b) throws IOException
+	{
+		ensure(1);
+		buffer_.put((byte) b);
+	}
+
+	@Override
+	public void write(byte[] b) throws IOException
+	{
+		write(b, 0, b.length);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException
+	{
+		while (len > 0)
+		{
+			ensure(1);
+			int chunk = Math.min(len, buffer_.remaining());
+			buffer_.put(b, off, chunk);
+			off += chunk;
+			len -= chunk;
+		}
+	}
+
+	@Override
+	public void writeBoolean(boolean v) throws IOException
+	{
+		ensure(1);
+		buffer_.put((byte) (v ? 1 : 0));
+	}
+
+	@Override
+	public void writeByte(int v) throws IOException
+	{
+		ensure(1);
+		buffer_.put((byte) v);
+	}
+
+	@Override
+	public void writeShort(int v) throws IOException
+	{
+		ensure(2);
+		buffer_.putShort((short) v);
+	}
+
+	@Override
+	public void writeChar(int v) throws IOException
+	{
+		ensure(2);
+		buffer_.putChar((char) v);
+	}
+
+	@Override
+	public void writeInt(int v) throws IOException
+	{
+		ensure(4);
+		buffer_.putInt(v);
+	}
+
+	@Override
+	public void writeLong(long v) throws IOException
+	{
+		ensure(8);
+		buffer_.putLong(v);
+	}
+
+	@Override
+	public void writeFloat(float v) throws IOException
+	{
+		writeInt(Float.floatToIntBits(v));
+	}
+
+	@Override
+	public void writeDouble(double v) throws IOException
+	{
+		writeLong(Double.doubleToLongBits(v));
+	}
+
+	@Override
+	public void writeBytes(String s) throws IOException
+	{
+		for (int i = 0; i < s.length(); i++)
+		{
+			ensure(1);
+			buffer_.put((byte) s.charAt(i));
+		}
+	}
+
+	@Override
+	public void writeChars(String s) throws IOException
+	{
+		for (int i = 0; i < s.length(); i++)
+		{
+			ensure(2);
+			buffer_.putChar(s.charAt(i));
+		}
+	}
+
+	/**
+	 * The same modified UTF-8 encoding as {@link java.io.DataOutputStream#writeUTF(String)}
+	 */
+	@Override
+	public void writeUTF(String s) throws IOException
+	{
+		int length = s.length();
+		int utfLength = 0;
+		for (int i = 0; i < length; i++)
+		{
+			char c = s.charAt(i);
+			utfLength += (c >= 0x0001 && c <= 0x007F) ? 1 : (c > 0x07FF ? 3 : 2);
+		}
+		if (utfLength > 65535)
+		{
+			throw new UTFDataFormatException("encoded string too long: " + utfLength + " bytes");
+		}
+		writeShort(utfLength);
+		for (int i = 0; i < length; i++)
+		{
+			char c = s.charAt(i);
+			ensure(3);
+			if (c >= 0x0001 && c <= 0x007F)
+			{
+				buffer_.put((byte) c);
+			}
+			else if (c > 0x07FF)
+			{
+				buffer_.put((byte) (0xE0 | ((c >> 12) & 0x0F)));
+				buffer_.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+				buffer_.put((byte) (0x80 | (c & 0x3F)));
+			}
+			else
+			{
+				buffer_.put((byte) (0xC0 | ((c >> 6) & 0x1F)));
+				buffer_.put((byte) (0x80 | (c & 0x3F)));
+			}
+		}
+	}
+
+	/**
+	 * Write the buffered bytes to the channel (in mapped mode, the bytes are already in the file mapping).  This does not force 
+	 * the bytes to the storage device.
+	 */
+	@Override
+	public void flush() throws IOException
+	{
+		checkOpen();
+		if (!mapped_)
+		{
+			drain();
+		}
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		if (closed_)
+		{
+			return;
+		}
+		try
+		{
+			if (mapped_)
+			{
+				channel_.truncate(bufferStart_ + buffer_.position());
+			}
+			else
+			{
+				drain();
+			}
+		}
+		finally
+		{
+			closed_ = true;
+			channel_.close();
+		}
+	}
+
+	/**
+	 * @return true once this output has been closed
+	 */
+	public boolean isClosed()
+	{
+		return closed_;
+	}
+
+	private void checkOpen() throws IOException
+	{
+		if (closed_)
+		{
+			throw new IOException("The output is closed");
+		}
+	}
+
+	/**
+	 * Make room for at least count bytes in the buffer
+	 */
+	private void ensure(int count) throws IOException
+	{
+		if (buffer_.remaining() < count)
+		{
+			checkOpen();
+			if (mapped_)
+			{
+				bufferStart_ += buffer_.position();
+				buffer_ = channel_.map(FileChannel.MapMode.READ_WRITE, bufferStart_, size_);
+			}
+			else
+			{
+				drain();
+			}
+		}
+	}
+
+	private void drain() throws IOException
+	{
+		buffer_.flip();
+		while (buffer_.hasRemaining())
+		{
+			channel_.write(buffer_);
+		}
+		bufferStart_ += buffer_.limit();
+		buffer_.clear();
+	}
+}
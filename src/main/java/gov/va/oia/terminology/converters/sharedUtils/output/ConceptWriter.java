@@ -0,0 +1,64 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.va.oia.terminology.converters.sharedUtils.output;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import org.ihtsdo.otf.tcc.dto.TtkConceptChronicle;
+
+/**
+ * {@link ConceptWriter}
+ *
+ * The output stage of a conversion - finished concepts are handed to {@link #write(TtkConceptChronicle)}, which serializes them 
+ * (with {@link TtkConceptChronicle#writeExternal(java.io.DataOutput)}) to the output - either immediately, or later, depending on 
+ * the implementation.  A concept may not be modified after it has been passed to write.
+ *
+ * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
+ */
+public interface ConceptWriter extends Closeable, Flushable
+{
+	/**
+	 * Write (or queue for writing) a finished concept.
+	 * @throws IOException if the concept - or any earlier concept - could not be written
+	 */
+	public void write(TtkConceptChronicle concept) throws IOException;
+
+	/**
+	 * Wait until all of the concepts passed to {@link #write(TtkConceptChronicle)} so far are written, and flush the output.
+	 */
+	@Override
+	public void flush() throws IOException;
+
+	/**
+	 * Write any remaining concepts, and close the output.
+	 */
+	@Override
+	public void close() throws IOException;
+
+	/**
+	 * @return true once the writer has been closed - directly, or through the stream it provides for writing to the output directly
+	 */
+	public boolean isClosed();
+
+	/**
+	 * @return the bytes written to the output so far
+	 */
+	public long getBytesWritten();
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.va.oia.terminology.converters.sharedUtils.output;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * {@link CountingOutputStream}
+ *
+ * Counts the bytes passed through to the wrapped stream - as a long, unlike {@link java.io.DataOutputStream#size()}, which stops 
+ * at Integer.MAX_VALUE.  The count (and whether the stream is closed) may be read from any thread.
+ *
+ * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
+ */
+public class CountingOutputStream extends FilterOutputStream
+{
+	private volatile long count_;
+	private volatile boolean closed_ = false;
+
+	public CountingOutputStream(OutputStream out)
+	{
+		super(out);
+	}
+
+	@Override
+	public void write(int b) throws IOException
+	{
+		out.write(b);
+		count_++;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException
+	{
+		out.write(b, off, len);
+		count_ += len;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		closed_ = true;
+		super.close();
+	}
+
+	/**
+	 * @return true once this stream has been closed
+	 */
+	public boolean isClosed()
+	{
+		return closed_;
+	}
+
+	/**
+	 * @return the number of bytes written so far
+	 */
+	public long getCount()
+	{
+		return count_;
+	}
+}
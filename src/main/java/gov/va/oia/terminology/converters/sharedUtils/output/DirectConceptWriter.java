@@ -0,0 +1,84 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.va.oia.terminology.converters.sharedUtils.output;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import org.ihtsdo.otf.tcc.dto.TtkConceptChronicle;
+
+/**
+ * {@link DirectConceptWriter}
+ *
+ * A {@link ConceptWriter} that serializes each concept on the calling thread - the same as calling writeExternal directly.
+ *
+ * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
+ */
+public class DirectConceptWriter implements ConceptWriter
+{
+	private final CountingOutputStream counter_;
+	private final DataOutputStream out_;
+
+	/**
+	 * @param out - the output - closed when this writer is closed.
+	 */
+	public DirectConceptWriter(OutputStream out)
+	{
+		counter_ = new CountingOutputStream(out);
+		out_ = new DataOutputStream(counter_);
+	}
+
+	@Override
+	public void write(TtkConceptChronicle concept) throws IOException
+	{
+		concept.writeExternal(out_);
+	}
+
+	/**
+	 * @return the output, for code that writes to the stream itself
+	 */
+	public DataOutputStream getDataOutputStream()
+	{
+		return out_;
+	}
+
+	@Override
+	public void flush() throws IOException
+	{
+		out_.flush();
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		out_.close();
+	}
+
+	@Override
+	public boolean isClosed()
+	{
+		return counter_.isClosed();
+	}
+
+	@Override
+	public long getBytesWritten()
+	{
+		return counter_.getCount();
+	}
+}
@@ -0,0 +1,241 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.va.oia.terminology.converters.sharedUtils.output;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * {@link FramedCompressionInputStream}
+ *
+ * Reads back, in order, the uncompressed bytes of a stream written by {@link FramedCompressionOutputStream}, verifying the 
+ * checksum of each frame.
+ * 
+ * For random or parallel access to a compressed file, use {@link #readIndex(FileChannel)} to find the frames, and 
+ * {@link #readFrame(FileChannel, long)} to decompress any one of them - it is safe to read different frames on different threads.
+ *
+ * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
+ */
+public class FramedCompressionInputStream extends InputStream
+{
+	private final DataInputStream in_;
+	private final Inflater inflater_ = new Inflater(true);
+	private byte[] compressed_ = new byte[0];
+	private byte[] frame_ = new byte[0];
+	private int frameLength_ = 0;
+	private int pos_ = 0;
+	private boolean finished_ = false;
+
+	/**
+	 * @param in - positioned at the start of the compressed stream.  It is closed when this stream is closed.
+	 */
+	public FramedCompressionInputStream(InputStream in) throws IOException
+	{
+		in_ = new DataInputStream(in);
+		if (in_.readInt() != FramedCompressionOutputStream.MAGIC)
+		{
+			throw new IOException("Not a framed compression stream");
+		}
+		int version = in_.readInt();
+		if (version != FramedCompressionOutputStream.VERSION)
+		{
+			throw new IOException("Unsupported framed compression version " + version);
+		}
+		in_.readInt();  //frame size
+	}
+
+	@Override
+	public int read() throws IOException
+	{
+		if (pos_ == frameLength_ && !nextFrame())
+		{
+			return -1;
+		}
+		return frame_[pos_++] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException
+	{
+		if (len == 0)
+		{
+			return 0;
+		}
+		if (pos_ == frameLength_ && !nextFrame())
+		{
+			return -1;
+		}
+		int chunk = Math.min(len, frameLength_ - pos_);
+		System.arraycopy(frame_, pos_, b, off, chunk);
+		pos_ += chunk;
+		return chunk;
+	}
+
+	@Override
+	public int available()
+	{
+		return frameLength_ - pos_;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		inflater_.end();
+		in_.close();
+	}
+
+	/**
+	 * @return false, at the end of the frames
+	 */
+	private boolean nextFrame() throws IOException
+	{
+		while (!finished_)
+		{
+			int length = in_.readInt();
+			if (length == FramedCompressionOutputStream.INDEX_MARKER)
+			{
+				finished_ = true;
+				break;
+			}
+			int compressedLength = in_.readInt();
+			int crc = in_.readInt();
+			if (compressed_.length < compressedLength)
+			{
+				compressed_ = new byte[compressedLength];
+			}
+			in_.readFully(compressed_, 0, compressedLength);
+			if (frame_.length < length)
+			{
+				frame_ = new byte[length];
+			}
+			inflate(inflater_, compressed_, compressedLength, frame_, length, crc);
+			frameLength_ = length;
+			pos_ = 0;
+			if (length > 0)
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void inflate(Inflater inflater, byte[] compressed, int compressedLength, byte[] frame, int length, int crc) throws IOException
+	{
+		inflater.reset();
+		inflater.setInput(compressed, 0, compressedLength);
+		try
+		{
+			int size = 0;
+			while (size < length)
+			{
+				int n = inflater.inflate(frame, size, length - size);
+				if (n == 0 && (inflater.finished() || inflater.needsInput()))
+				{
+					break;
+				}
+				size += n;
+			}
+			if (size != length)
+			{
+				throw new IOException("Corrupt compressed frame - expected " + length + " bytes, found " + size);
+			}
+		}
+		catch (DataFormatException e)
+		{
+			throw new IOException("Corrupt compressed frame", e);
+		}
+		CRC32 check = new CRC32();
+		check.update(frame, 0, length);
+		if ((int) check.getValue() != crc)
+		{
+			throw new IOException("Compressed frame checksum mismatch");
+		}
+	}
+
+	/**
+	 * Read the frame index from the end of a compressed file.
+	 * @return the file offset of each frame, in order - pass them to {@link #readFrame(FileChannel, long)}
+	 */
+	public static long[] readIndex(FileChannel file) throws IOException
+	{
+		ByteBuffer trailer = readFully(file, file.size() - 12, 12);
+		if (trailer.getInt(8) != FramedCompressionOutputStream.MAGIC)
+		{
+			throw new IOException("Not a framed compression file, or it was not closed");
+		}
+		long indexOffset = trailer.getLong(0);
+		ByteBuffer header = readFully(file, indexOffset, 8);
+		if (header.getInt(0) != FramedCompressionOutputStream.INDEX_MARKER)
+		{
+			throw new IOException("Invalid frame index offset");
+		}
+		int frameCount = header.getInt(4);
+		ByteBuffer entries = readFully(file, indexOffset + 8, frameCount * 12);
+		long[] result = new long[frameCount];
+		for (int i = 0; i < frameCount; i++)
+		{
+			result[i] = entries.getLong(i * 12);
+		}
+		return result;
+	}
+
+	/**
+	 * Decompress a single frame.
+	 * @param offset - the file offset of the frame, from {@link #readIndex(FileChannel)}
+	 * @return the uncompressed bytes of the frame
+	 */
+	public static byte[] readFrame(FileChannel file, long offset) throws IOException
+	{
+		ByteBuffer header = readFully(file, offset, 12);
+		int length = header.getInt(0);
+		int compressedLength = header.getInt(4);
+		ByteBuffer compressed = readFully(file, offset + 12, compressedLength);
+		byte[] frame = new byte[length];
+		Inflater inflater = new Inflater(true);
+		try
+		{
+			inflate(inflater, compressed.array(), compressedLength, frame, length, header.getInt(8));
+		}
+		finally
+		{
+			inflater.end();
+		}
+		return frame;
+	}
+
+	private static ByteBuffer readFully(FileChannel file, long position, int length) throws IOException
+	{
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining())
+		{
+			if (file.read(buffer, position + buffer.position()) < 0)
+			{
+				throw new EOFException("Unexpected end of the compressed file");
+			}
+		}
+		return buffer;
+	}
+}
@@ -0,0 +1,314 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.va.oia.terminology.converters.sharedUtils.output;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * {@link FramedCompressionOutputStream}
+ *
+ * Compresses a stream in independently decodable frames - the data is cut into frames of a fixed uncompressed size, and each 
+ * frame is deflated on its own (on a pool of threads), so a reader can decompress frames in parallel, or seek straight to the 
+ * frame holding a given offset.  The frames are written in order, so the decompressed output is exactly the bytes written.
+ * 
+ * The format (all values big endian, as written by {@link DataOutputStream}):
+ * <pre>
+ * header:  int {@link #MAGIC}, int {@link #VERSION}, int frame size
+ * frame:   int uncompressed length, int compressed length, int CRC32 of the uncompressed bytes, the raw (nowrap) deflate bytes
+ * index:   int {@link #INDEX_MARKER}, int frame count, then per frame: long file offset of the frame, int uncompressed length
+ * trailer: long file offset of the index, int {@link #MAGIC}
+ * </pre>
+ * Frames are usually the full frame size - but a {@link #flush()} ends the current frame early.  See 
+ * {@link FramedCompressionInputStream} for reading the format back.
+ *
+ * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
+ */
+public class FramedCompressionOutputStream extends OutputStream
+{
+	public static final int MAGIC = 0x45434648;  //ECFH
+	public static final int VERSION = 1;
+	public static final int INDEX_MARKER = -1;
+	public static final int DEFAULT_FRAME_SIZE = 1 << 20;
+
+	private final DataOutputStream out_;
+	private final int frameSize_;
+	private final int level_;
+	private final ExecutorService executor_;
+	private final int maxPending_;
+	private final ArrayDeque<Future<Frame>> pending_ = new ArrayDeque<>();
+	private final ArrayDeque<byte[]> freeBuffers_ = new ArrayDeque<>();
+
+	private final ByteArrayOutputStream indexBytes_ = new ByteArrayOutputStream();
+	private final DataOutputStream index_ = new DataOutputStream(indexBytes_);
+	private int frameCount_ = 0;
+	private long position_;
+
+	private byte[] buffer_;
+	private int count_ = 0;
+	private boolean closed_ = false;
+
+	/**
+	 * Compress with the default frame size and compression level, on one thread per processor.
+	 */
+	public FramedCompressionOutputStream(OutputStream out) throws IOException
+	{
+		this(out, DEFAULT_FRAME_SIZE, Deflater.DEFAULT_COMPRESSION, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param out - where to write the compressed stream - it is closed when this stream is closed.
+	 * @param frameSize - the uncompressed size of each frame
+	 * @param level - the {@link Deflater} compression level
+	 * @param threads - the number of threads to compress on - with 1, frames are compressed on the writing thread.
+	 */
+	public FramedCompressionOutputStream(OutputStream out, int frameSize, int level, int threads) throws IOException
+	{
+		if (frameSize < 1 || threads < 1)
+		{
+			throw new IllegalArgumentException("The frame size and thread count must be positive");
+		}
+		out_ = new DataOutputStream(out);
+		frameSize_ = frameSize;
+		level_ = level;
+		maxPending_ = threads * 2;
+		if (threads > 1)
+		{
+			executor_ = Executors.newFixedThreadPool(threads, new ThreadFactory()
+			{
+				@Override
+				public Thread newThread(Runnable r)
+				{
+					Thread t = new Thread(r, "FramedCompressionOutputStream");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+		else
+		{
+			executor_ = null;
+		}
+		buffer_ = new byte[frameSize];
+		out_.writeInt(MAGIC);
+		out_.writeInt(VERSION);
+		out_.writeInt(frameSize);
+		position_ = 12;
+	}
+
+	@Override
+	public void write(int b) throws IOException
+	{
+		if (count_ == buffer_.length)
+		{
+			endFrame();
+		}
+		buffer_[count_++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException
+	{
+		while (len > 0)
+		{
+			if (count_ == buffer_.length)
+			{
+				endFrame();
+			}
+			int chunk = Math.min(len, buffer_.length - count_);
+			System.arraycopy(b, off, buffer_, count_, chunk);
+			count_ += chunk;
+			off += chunk;
+			len -= chunk;
+		}
+	}
+
+	/**
+	 * End the current frame, and write out all of the compressed frames.
+	 */
+	@Override
+	public void flush() throws IOException
+	{
+		checkOpen();
+		if (count_ > 0)
+		{
+			endFrame();
+		}
+		while (!pending_.isEmpty())
+		{
+			writeFrame();
+		}
+		out_.flush();
+	}
+
+	/**
+	 * Write the remaining frames, the index and the trailer, and close the underlying stream.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		if (closed_)
+		{
+			return;
+		}
+		try
+		{
+			flush();
+			closed_ = true;
+			long indexOffset = position_;
+			out_.writeInt(INDEX_MARKER);
+			out_.writeInt(frameCount_);
+			indexBytes_.writeTo(out_);
+			out_.writeLong(indexOffset);
+			out_.writeInt(MAGIC);
+		}
+		finally
+		{
+			closed_ = true;
+			if (executor_ != null)
+			{
+				executor_.shutdownNow();
+			}
+			out_.close();
+		}
+	}
+
+	private void checkOpen() throws IOException
+	{
+		if (closed_)
+		{
+			throw new IOException("The stream is closed");
+		}
+	}
+
+	/**
+	 * Hand the buffered bytes off for compression, writing out the oldest frames if too many are pending.
+	 */
+	private void endFrame() throws IOException
+	{
+		checkOpen();
+		while (pending_.size() >= maxPending_)
+		{
+			writeFrame();
+		}
+		final byte[] data = buffer_;
+		final int length = count_;
+		FutureTask<Frame> task = new FutureTask<>(new Callable<Frame>()
+		{
+			@Override
+			public Frame call()
+			{
+				return compress(data, length);
+			}
+		});
+		if (executor_ == null)
+		{
+			task.run();
+		}
+		else
+		{
+			executor_.execute(task);
+		}
+		pending_.add(task);
+		buffer_ = freeBuffers_.isEmpty() ? new byte[frameSize_] : freeBuffers_.removeFirst();
+		count_ = 0;
+	}
+
+	private void writeFrame() throws IOException
+	{
+		Frame frame;
+		try
+		{
+			frame = pending_.removeFirst().get();
+		}
+		catch (InterruptedException e)
+		{
+			throw new IOException("Interrupted while compressing the output", e);
+		}
+		catch (ExecutionException e)
+		{
+			throw new IOException("Failure compressing the output", e.getCause());
+		}
+		index_.writeLong(position_);
+		index_.writeInt(frame.length_);
+		frameCount_++;
+		out_.writeInt(frame.length_);
+		out_.writeInt(frame.compressedLength_);
+		out_.writeInt(frame.crc_);
+		out_.write(frame.compressed_, 0, frame.compressedLength_);
+		position_ += 12 + frame.compressedLength_;
+		freeBuffers_.add(frame.data_);
+	}
+
+	private Frame compress(byte[] data, int length)
+	{
+		Frame frame = new Frame();
+		frame.data_ = data;
+		frame.length_ = length;
+		CRC32 crc = new CRC32();
+		crc.update(data, 0, length);
+		frame.crc_ = (int) crc.getValue();
+		Deflater deflater = new Deflater(level_, true);
+		try
+		{
+			deflater.setInput(data, 0, length);
+			deflater.finish();
+			byte[] compressed = new byte[length + (length >> 8) + 64];
+			int size = 0;
+			while (!deflater.finished())
+			{
+				if (size == compressed.length)
+				{
+					byte[] larger = new byte[compressed.length * 2];
+					System.arraycopy(compressed, 0, larger, 0, size);
+					compressed = larger;
+				}
+				size += deflater.deflate(compressed, size, compressed.length - size);
+			}
+			frame.compressed_ = compressed;
+			frame.compressedLength_ = size;
+		}
+		finally
+		{
+			deflater.end();
+		}
+		return frame;
+	}
+
+	private static class Frame
+	{
+		private byte[] data_;
+		private int length_;
+		private int crc_;
+		private byte[] compressed_;
+		private int compressedLength_;
+	}
+}
@@ -0,0 +1,284 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.va.oia.terminology.converters.sharedUtils.output;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.ihtsdo.otf.tcc.dto.TtkConceptChronicle;
+
+/**
+ * {@link ParallelConceptWriter}
+ *
+ * A {@link ConceptWriter} that validates and serializes concepts on a pool of threads, each concept into its own (pooled) 
+ * buffer - and then writes the buffers to the output in the order the concepts were passed to {@link #write(TtkConceptChronicle)}.
+ * The output is byte for byte the same as writing the concepts one after the other, whatever the number of threads.
+ * 
+ * The buffers are written to the output by the thread calling write (as the oldest concepts finish), and the number of concepts 
+ * in flight is bounded - when the limit is reached, write waits for the oldest concept to finish.  If serializing a concept fails, 
+ * the failure is rethrown (as an IOException) from write, flush or close, and nothing more is written.
+ * 
+ * Intended for a single loader thread.  Code that writes to the output itself must use {@link #getDataOutputStream()} - writes 
+ * through it are ordered after all of the concepts already passed to write.
+ *
+ * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
+ */
+public class ParallelConceptWriter implements ConceptWriter
+{
+	private static final int MAX_POOLED_BUFFER = 4 * 1024 * 1024;  //don't hold on to the buffers of unusually large concepts
+	private static final AtomicInteger poolNumber_ = new AtomicInteger();
+
+	private final ExecutorService executor_;
+	private final int maxPending_;
+	private final ArrayDeque<Future<ByteArrayOutputStream>> pending_ = new ArrayDeque<>();
+	private final ArrayBlockingQueue<ByteArrayOutputStream> buffers_;
+	private final CountingOutputStream counter_;
+	private final DataOutputStream out_;
+	private final DataOutputStream direct_;
+	private IOException failure_ = null;
+	private boolean closed_ = false;
+
+	/**
+	 * @param out - the output - closed when this writer is closed.
+	 * @param threads - the number of serialization threads
+	 */
+	public ParallelConceptWriter(OutputStream out, int threads)
+	{
+		if (threads < 1)
+		{
+			throw new IllegalArgumentException("At least one thread is required");
+		}
+		final String namePrefix = "ParallelConceptWriter-" + poolNumber_.incrementAndGet() + "-";
+		executor_ = Executors.newFixedThreadPool(threads, new ThreadFactory()
+		{
+			private final AtomicInteger threadNumber_ = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable r)
+			{
+				Thread t = new Thread(r, namePrefix + threadNumber_.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		maxPending_ = threads * 4;
+		buffers_ = new ArrayBlockingQueue<>(maxPending_ + 1);
+		counter_ = new CountingOutputStream(out);
+		out_ = new DataOutputStream(counter_);
+		direct_ = new DataOutputStream(new OrderedOutputStream());
+	}
+
+	@Override
+	public synchronized void write(final TtkConceptChronicle concept) throws IOException
+	{
+		checkState();
+		while (pending_.size() >= maxPending_)
+		{
+			writeOldest();
+		}
+		pending_.add(executor_.submit(new Callable<ByteArrayOutputStream>()
+		{
+			@Override
+			public ByteArrayOutputStream call() throws IOException
+			{
+				ByteArrayOutputStream buffer = buffers_.poll();
+				if (buffer == null)
+				{
+					buffer = new ByteArrayOutputStream(8192);
+				}
+				concept.writeExternal(new DataOutputStream(buffer));
+				return buffer;
+			}
+		}));
+		//opportunistically write anything that is already done, without waiting
+		while (!pending_.isEmpty() && pending_.peekFirst().isDone())
+		{
+			writeOldest();
+		}
+	}
+
+	/**
+	 * @return an output stream for code that writes to the output itself - see the class description.  Closing it closes this writer.
+	 */
+	public DataOutputStream getDataOutputStream()
+	{
+		return direct_;
+	}
+
+	@Override
+	public synchronized void flush() throws IOException
+	{
+		checkState();
+		writeAll();
+		out_.flush();
+	}
+
+	@Override
+	public synchronized void close() throws IOException
+	{
+		if (closed_)
+		{
+			return;
+		}
+		try
+		{
+			if (failure_ == null)
+			{
+				writeAll();
+			}
+		}
+		finally
+		{
+			closed_ = true;
+			executor_.shutdownNow();
+			out_.close();
+		}
+		if (failure_ != null)
+		{
+			throw failure_;
+		}
+	}
+
+	@Override
+	public synchronized boolean isClosed()
+	{
+		return closed_;
+	}
+
+	@Override
+	public long getBytesWritten()
+	{
+		return counter_.getCount();
+	}
+
+	private void writeAll() throws IOException
+	{
+		while (!pending_.isEmpty())
+		{
+			writeOldest();
+		}
+	}
+
+	private void writeOldest() throws IOException
+	{
+		ByteArrayOutputStream buffer;
+		try
+		{
+			buffer = pending_.removeFirst().get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted waiting for a concept to be serialized");
+		}
+		catch (ExecutionException e)
+		{
+			fail(e.getCause());
+			throw failure_;
+		}
+		try
+		{
+			buffer.writeTo(out_);
+		}
+		catch (IOException e)
+		{
+			fail(e);
+			throw failure_;
+		}
+		if (buffer.size() <= MAX_POOLED_BUFFER)
+		{
+			buffer.reset();
+			buffers_.offer(buffer);
+		}
+	}
+
+	private void fail(Throwable cause)
+	{
+		failure_ = new IOException("Writing a concept failed: " + cause, cause);
+		for (Future<ByteArrayOutputStream> f : pending_)
+		{
+			f.cancel(true);
+		}
+		pending_.clear();
+		executor_.shutdownNow();
+	}
+
+	private void checkState() throws IOException
+	{
+		if (failure_ != null)
+		{
+			throw failure_;
+		}
+		if (closed_)
+		{
+			throw new IOException("The concept writer is closed");
+		}
+	}
+
+	/**
+	 * Writes straight to the output - after writing out the concepts in flight.
+	 */
+	private class OrderedOutputStream extends OutputStream
+	{
+		@Override
+		public void write(int b) throws IOException
+		{
+			synchronized (ParallelConceptWriter.this)
+			{
+				checkState();
+				writeAll();
+				out_.write(b);
+			}
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException
+		{
+			synchronized (ParallelConceptWriter.this)
+			{
+				checkState();
+				writeAll();
+				out_.write(b, off, len);
+			}
+		}
+
+		@Override
+		public void flush() throws IOException
+		{
+			ParallelConceptWriter.this.flush();
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			ParallelConceptWriter.this.close();
+		}
+	}
+}
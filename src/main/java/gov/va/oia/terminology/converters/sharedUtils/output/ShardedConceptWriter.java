@@ -0,0 +1,249 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.va.oia.terminology.converters.sharedUtils.output;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.AtomicLong;
+import org.ihtsdo.otf.tcc.dto.TtkConceptChronicle;
+
+/**
+ * {@link ShardedConceptWriter}
+ *
+ * A {@link ConceptWriter} that partitions the concepts across a number of shard files, by the hash of their primordial UUID - so 
+ * a given concept always lands in the same shard (for a given shard count).  Each shard is written by its own 
+ * {@link AsyncConceptWriter}, so the shards are validated, serialized and written in parallel.
+ * 
+ * For an output file of name.ext, the shards are name-0.ext, name-1.ext, ... and, when the writer is closed, a name.manifest.json 
+ * file is written listing each shard with its concept count, size and SHA-256 checksum.  The manifest is only written if all of 
+ * the shards were written successfully.
+ * 
+ * Content written to the output directly (through {@link #getDataOutputStream()} - such as the EConceptUtility metadata 
+ * concepts) goes to shard 0, ordered after the concepts already queued for shard 0.
+ *
+ * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
+ */
+public class ShardedConceptWriter implements ConceptWriter
+{
+	private final File manifest_;
+	private final Shard[] shards_;
+	private boolean closed_ = false;
+
+	/**
+	 * @param outputFile - the name the shard and manifest files are derived from - it is not created itself.
+	 * @param shardCount - the number of shards
+	 */
+	public ShardedConceptWriter(File outputFile, int shardCount) throws IOException
+	{
+		if (shardCount < 1)
+		{
+			throw new IllegalArgumentException("At least one shard is required");
+		}
+		String name = outputFile.getName();
+		int dot = name.lastIndexOf('.');
+		String base = (dot > 0 ? name.substring(0, dot) : name);
+		String extension = (dot > 0 ? name.substring(dot) : "");
+		manifest_ = new File(outputFile.getParentFile(), base + ".manifest.json");
+		shards_ = new Shard[shardCount];
+		try
+		{
+			for (int i = 0; i < shardCount; i++)
+			{
+				shards_[i] = new Shard(new File(outputFile.getParentFile(), base + "-" + i + extension));
+			}
+		}
+		catch (IOException | RuntimeException e)
+		{
+			for (Shard shard : shards_)
+			{
+				if (shard != null)
+				{
+					try
+					{
+						shard.writer_.close();
+					}
+					catch (IOException e1)
+					{
+						//already failing
+					}
+				}
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the shard a concept is written to
+	 */
+	public int getShard(TtkConceptChronicle concept)
+	{
+		return Math.floorMod(concept.getPrimordialUuid().hashCode(), shards_.length);
+	}
+
+	@Override
+	public void write(TtkConceptChronicle concept) throws IOException
+	{
+		Shard shard = shards_[getShard(concept)];
+		shard.writer_.write(concept);
+		shard.concepts_.incrementAndGet();
+	}
+
+	/**
+	 * @return an output stream for code that writes to the output itself - it writes to shard 0.  Closing it closes this writer.
+	 */
+	public DataOutputStream getDataOutputStream()
+	{
+		return shards_[0].writer_.getDataOutputStream();
+	}
+
+	@Override
+	public void flush() throws IOException
+	{
+		for (Shard shard : shards_)
+		{
+			shard.writer_.flush();
+		}
+	}
+
+	/**
+	 * Close all of the shards, and write the manifest.
+	 */
+	@Override
+	public synchronized void close() throws IOException
+	{
+		if (closed_)
+		{
+			return;
+		}
+		closed_ = true;
+		IOException failure = null;
+		for (Shard shard : shards_)
+		{
+			try
+			{
+				shard.writer_.close();
+			}
+			catch (IOException e)
+			{
+				if (failure == null)
+				{
+					failure = e;
+				}
+			}
+		}
+		if (failure != null)
+		{
+			throw failure;
+		}
+		writeManifest();
+	}
+
+	@Override
+	public synchronized boolean isClosed()
+	{
+		return closed_;
+	}
+
+	@Override
+	public long getBytesWritten()
+	{
+		long total = 0;
+		for (Shard shard : shards_)
+		{
+			total += shard.writer_.getBytesWritten();
+		}
+		return total;
+	}
+
+	public File getManifest()
+	{
+		return manifest_;
+	}
+
+	private void writeManifest() throws IOException
+	{
+		String eol = System.getProperty("line.separator");
+		long totalConcepts = 0;
+		long totalBytes = 0;
+		try (Writer out = new OutputStreamWriter(new FileOutputStream(manifest_), StandardCharsets.UTF_8))
+		{
+			out.write("{" + eol);
+			out.write("  \"shards\": [" + eol);
+			for (int i = 0; i < shards_.length; i++)
+			{
+				Shard shard = shards_[i];
+				out.write("    {\"file\": \"" + escapeJson(shard.file_.getName()) + "\", \"concepts\": " + shard.concepts_.get() + ", \"bytes\": " 
+						+ shard.writer_.getBytesWritten() + ", \"sha256\": \"" + toHex(shard.digest_.digest()) + "\"}" + (i + 1 < shards_.length ? "," : "") + eol);
+				totalConcepts += shard.concepts_.get();
+				totalBytes += shard.writer_.getBytesWritten();
+			}
+			out.write("  ]," + eol);
+			out.write("  \"concepts\": " + totalConcepts + "," + eol);
+			out.write("  \"bytes\": " + totalBytes + eol);
+			out.write("}" + eol);
+		}
+	}
+
+	private static String escapeJson(String value)
+	{
+		return value.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+
+	private static String toHex(byte[] bytes)
+	{
+		StringBuilder result = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes)
+		{
+			result.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+		}
+		return result.toString();
+	}
+
+	private static class Shard
+	{
+		private final File file_;
+		private final MessageDigest digest_;
+		private final AsyncConceptWriter writer_;
+		private final AtomicLong concepts_ = new AtomicLong();
+
+		private Shard(File file) throws IOException
+		{
+			file_ = file;
+			try
+			{
+				digest_ = MessageDigest.getInstance("SHA-256");
+			}
+			catch (NoSuchAlgorithmException e)
+			{
+				throw new RuntimeException("Unexpected error configuring the shard checksum", e);
+			}
+			//buffer ahead of the digest, so it is updated in large blocks
+			writer_ = new AsyncConceptWriter(new BufferedOutputStream(new DigestOutputStream(new FileOutputStream(file), digest_), 1 << 16));
+		}
+	}
+}
@@ -18,6 +18,8 @@
  */
 package gov.va.oia.terminology.converters.sharedUtils.propertyTypes;
 
+import gov.va.oia.terminology.converters.sharedUtils.stats.ConverterUUID;
+import gov.va.oia.terminology.converters.sharedUtils.stats.ConverterUUIDContext;
 import org.ihtsdo.otf.tcc.api.refexDynamic.data.RefexDynamicDataType;
 
 
@@ -29,6 +31,11 @@ public class BPT_Annotations extends PropertyType
 {
 	public BPT_Annotations()
 	{
-		super("Attribute Types", true, RefexDynamicDataType.STRING);
+		this(ConverterUUID.getDefaultContext());
+	}
+	
+	public BPT_Annotations(ConverterUUIDContext uuidContext)
+	{
+		super(uuidContext, "Attribute Types", true, RefexDynamicDataType.STRING);
 	}
 }
@@ -18,6 +18,8 @@
  */
 package gov.va.oia.terminology.converters.sharedUtils.propertyTypes;
 
+import gov.va.oia.terminology.converters.sharedUtils.stats.ConverterUUID;
+import gov.va.oia.terminology.converters.sharedUtils.stats.ConverterUUIDContext;
 import org.ihtsdo.otf.tcc.api.refexDynamic.data.RefexDynamicDataType;
 import gov.va.oia.terminology.converters.sharedUtils.propertyTypes.PropertyType;
 
@@ -29,11 +31,21 @@ public class BPT_Associations extends PropertyType
 {
 	public BPT_Associations(String terminologyName)
 	{
-		super("Associations Types", terminologyName + " Association Type", true, RefexDynamicDataType.STRING);
+		this(ConverterUUID.getDefaultContext(), terminologyName);
 	}
 	
 	public BPT_Associations(String propertyTypeDescription, String terminologyName)
 	{
-		super(propertyTypeDescription, terminologyName + " Association Type", true, RefexDynamicDataType.STRING);
+		this(ConverterUUID.getDefaultContext(), propertyTypeDescription, terminologyName);
+	}
+	
+	public BPT_Associations(ConverterUUIDContext uuidContext, String terminologyName)
+	{
+		this(uuidContext, "Associations Types", terminologyName);
+	}
+	
+	public BPT_Associations(ConverterUUIDContext uuidContext, String propertyTypeDescription, String terminologyName)
+	{
+		super(uuidContext, propertyTypeDescription, terminologyName + " Association Type", true, RefexDynamicDataType.STRING);
 	}
 }
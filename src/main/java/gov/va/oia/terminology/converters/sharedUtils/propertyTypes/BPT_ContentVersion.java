@@ -18,6 +18,8 @@
  */
 package gov.va.oia.terminology.converters.sharedUtils.propertyTypes;
 
+import gov.va.oia.terminology.converters.sharedUtils.stats.ConverterUUID;
+import gov.va.oia.terminology.converters.sharedUtils.stats.ConverterUUIDContext;
 import org.ihtsdo.otf.tcc.api.refexDynamic.data.RefexDynamicDataType;
 
 /**
@@ -32,7 +34,12 @@ public class BPT_ContentVersion extends PropertyType
 
 	public BPT_ContentVersion()
 	{
-		super("Content Version", true, RefexDynamicDataType.STRING);
+		this(ConverterUUID.getDefaultContext());
+	}
+	
+	public BPT_ContentVersion(ConverterUUIDContext uuidContext)
+	{
+		super(uuidContext, "Content Version", true, RefexDynamicDataType.STRING);
 		RELEASE = addProperty("Release");
 		LOADER_VERSION = addProperty("Loader Version");
 	}
@@ -18,6 +18,8 @@
  */
 package gov.va.oia.terminology.converters.sharedUtils.propertyTypes;
 
+import gov.va.oia.terminology.converters.sharedUtils.stats.ConverterUUID;
+import gov.va.oia.terminology.converters.sharedUtils.stats.ConverterUUIDContext;
 
 
 /**
@@ -41,6 +43,11 @@ public class BPT_Descriptions extends PropertyType
 
 	public BPT_Descriptions(String terminologyName)
 	{
-		super("Description Types", terminologyName + " Description Type", false, null);
+		this(ConverterUUID.getDefaultContext(), terminologyName);
+	}
+	
+	public BPT_Descriptions(ConverterUUIDContext uuidContext, String terminologyName)
+	{
+		super(uuidContext, "Description Types", terminologyName + " Description Type", false, null);
 	}
 }
@@ -18,6 +18,8 @@
  */
 package gov.va.oia.terminology.converters.sharedUtils.propertyTypes;
 
+import gov.va.oia.terminology.converters.sharedUtils.stats.ConverterUUID;
+import gov.va.oia.terminology.converters.sharedUtils.stats.ConverterUUIDContext;
 import java.util.HashMap;
 import org.ihtsdo.otf.tcc.dto.TtkConceptChronicle;
 
@@ -35,7 +37,12 @@ public class BPT_MemberRefsets extends PropertyType
 
 	public BPT_MemberRefsets(String terminologyName)
 	{
-		super("Refsets", terminologyName + " Refsets", true, null);
+		this(ConverterUUID.getDefaultContext(), terminologyName);
+	}
+	
+	public BPT_MemberRefsets(ConverterUUIDContext uuidContext, String terminologyName)
+	{
+		super(uuidContext, "Refsets", terminologyName + " Refsets", true, null);
 		conceptMap_ = new HashMap<>();
 	}
 	
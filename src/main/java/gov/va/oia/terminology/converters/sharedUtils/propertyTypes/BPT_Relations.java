@@ -18,6 +18,8 @@
  */
 package gov.va.oia.terminology.converters.sharedUtils.propertyTypes;
 
+import gov.va.oia.terminology.converters.sharedUtils.stats.ConverterUUID;
+import gov.va.oia.terminology.converters.sharedUtils.stats.ConverterUUIDContext;
 import gov.va.oia.terminology.converters.sharedUtils.propertyTypes.PropertyType;
 
 /**
@@ -28,11 +30,21 @@ public class BPT_Relations extends PropertyType
 {
 	public BPT_Relations(String terminologyName)
 	{
-		super("Relation Types", terminologyName + " Relation Type", false, null);
+		this(ConverterUUID.getDefaultContext(), terminologyName);
 	}
 	
 	public BPT_Relations(String propertyTypeDescription, String terminologyName)
 	{
-		super(propertyTypeDescription, terminologyName + " Relation Type", false, null);
+		this(ConverterUUID.getDefaultContext(), propertyTypeDescription, terminologyName);
+	}
+	
+	public BPT_Relations(ConverterUUIDContext uuidContext, String terminologyName)
+	{
+		this(uuidContext, "Relation Types", terminologyName);
+	}
+	
+	public BPT_Relations(ConverterUUIDContext uuidContext, String propertyTypeDescription, String terminologyName)
+	{
+		super(uuidContext, propertyTypeDescription, terminologyName + " Relation Type", false, null);
 	}
 }
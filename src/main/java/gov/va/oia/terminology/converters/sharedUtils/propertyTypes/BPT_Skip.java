@@ -18,6 +18,8 @@
  */
 package gov.va.oia.terminology.converters.sharedUtils.propertyTypes;
 
+import gov.va.oia.terminology.converters.sharedUtils.stats.ConverterUUID;
+import gov.va.oia.terminology.converters.sharedUtils.stats.ConverterUUIDContext;
 import java.util.List;
 import gov.va.oia.terminology.converters.sharedUtils.propertyTypes.PropertyType;
 
@@ -31,7 +33,12 @@ public abstract class BPT_Skip extends PropertyType
 {
 	public BPT_Skip(String description)
 	{
-		super(description, false, null);
+		this(ConverterUUID.getDefaultContext(), description);
+	}
+	
+	public BPT_Skip(ConverterUUIDContext uuidContext, String description)
+	{
+		super(uuidContext, description, false, null);
 	}
 	
 	protected void addSkipListEntries(List<String>[] skipLists)
@@ -20,6 +20,7 @@ package gov.va.oia.terminology.converters.sharedUtils.propertyTypes;
 
 import gov.va.oia.terminology.converters.sharedUtils.ConsoleUtil;
 import gov.va.oia.terminology.converters.sharedUtils.stats.ConverterUUID;
+import gov.va.oia.terminology.converters.sharedUtils.stats.ConverterUUIDContext;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -43,6 +44,7 @@ import org.ihtsdo.otf.tcc.dto.TtkConceptChronicle;
 public abstract class PropertyType implements ConceptCreationNotificationListener
 {
 	protected static int srcVersion_ = 1;
+	private final ConverterUUIDContext uuidContext_;
 	private UUID propertyTypeUUID = null;
 	private String propertyTypeDescription_;
 	private String propertyTypeReferenceSetName_;
@@ -65,19 +67,36 @@ public abstract class PropertyType implements ConceptCreationNotificationListene
 	
 	protected PropertyType(String propertyTypeDescription, boolean createAsDynamicRefex, RefexDynamicDataType defaultDynamicRefexColumnType)
 	{
-		this(propertyTypeDescription, null, createAsDynamicRefex, defaultDynamicRefexColumnType);
+		this(ConverterUUID.getDefaultContext(), propertyTypeDescription, null, createAsDynamicRefex, defaultDynamicRefexColumnType);
 	}
 	
 	protected PropertyType(String propertyTypeDescription, String propertyTypeRefSetName, boolean createAsDynamicRefex, RefexDynamicDataType defaultDynamicRefexColumnType)
 	{
+		this(ConverterUUID.getDefaultContext(), propertyTypeDescription, propertyTypeRefSetName, createAsDynamicRefex, defaultDynamicRefexColumnType);
+	}
+	
+	protected PropertyType(ConverterUUIDContext uuidContext, String propertyTypeDescription, boolean createAsDynamicRefex, 
+			RefexDynamicDataType defaultDynamicRefexColumnType)
+	{
+		this(uuidContext, propertyTypeDescription, null, createAsDynamicRefex, defaultDynamicRefexColumnType);
+	}
+	
+	/**
+	 * @param uuidContext - the context to generate the UUIDs in - this should be the same context that was passed to the 
+	 * EConceptUtility of the conversion.  The other constructors use the default context of {@link ConverterUUID}.
+	 */
+	protected PropertyType(ConverterUUIDContext uuidContext, String propertyTypeDescription, String propertyTypeRefSetName, boolean createAsDynamicRefex, 
+			RefexDynamicDataType defaultDynamicRefexColumnType)
+	{
+		this.uuidContext_ = uuidContext;
 		this.properties_ = new HashMap<String, Property>();
 		this.propertyTypeDescription_ = propertyTypeDescription;
 		this.createAsDynamicRefex_ = createAsDynamicRefex;
 		propertyTypeReferenceSetName_ = propertyTypeRefSetName;
-		propertyTypeReferenceSetUUID = (propertyTypeReferenceSetName_ == null ? null : ConverterUUID.createNamespaceUUIDFromString(propertyTypeReferenceSetName_));
+		propertyTypeReferenceSetUUID = (propertyTypeReferenceSetName_ == null ? null : uuidContext_.createNamespaceUUIDFromString(propertyTypeReferenceSetName_));
 		if (propertyTypeReferenceSetUUID != null)
 		{
-			ConverterUUID.removeMapping(propertyTypeReferenceSetUUID);  //disable dupe detection for this one (at least, don't let this trigger it)
+			uuidContext_.removeMapping(propertyTypeReferenceSetUUID);  //disable dupe detection for this one (at least, don't let this trigger it)
 		}
 		this.defaultDataColumn_ = defaultDynamicRefexColumnType;
 	}
@@ -86,11 +105,16 @@ public abstract class PropertyType implements ConceptCreationNotificationListene
 	{
 		if (propertyTypeUUID == null)
 		{
-			propertyTypeUUID = ConverterUUID.createNamespaceUUIDFromString(propertyTypeDescription_);
+			propertyTypeUUID = uuidContext_.createNamespaceUUIDFromString(propertyTypeDescription_);
 		}
 		return propertyTypeUUID;
 	}
 
+	public ConverterUUIDContext getUUIDContext()
+	{
+		return uuidContext_;
+	}
+
 	public String getPropertyTypeDescription()
 	{
 		return propertyTypeDescription_;
@@ -98,7 +122,7 @@ public abstract class PropertyType implements ConceptCreationNotificationListene
 
 	protected UUID getPropertyUUID(String propertyName)
 	{
-		return ConverterUUID.createNamespaceUUIDFromString(propertyTypeDescription_ + ":" + propertyName);
+		return uuidContext_.createNamespaceUUIDFromString(propertyTypeDescription_ + ":" + propertyName);
 	}
 
 	public Property getProperty(String propertyName)
@@ -0,0 +1,265 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.va.oia.terminology.converters.sharedUtils.stats;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * {@link ConversionCheckpoint}
+ *
+ * A checkpoint of a conversion in progress - the size of the output, the position reached in the source (in whatever units the 
+ * loader counts records), the {@link LoadStats}, and a journal of the UUID debug map - from which a failed conversion can be 
+ * resumed, rather than rerun from the start.
+ * 
+ * The UUID debug map is appended to a journal file next to the checkpoint (see {@link #getJournalFile(File)}) - each checkpoint 
+ * only writes the UUIDs generated since the previous one, and records the length of the journal, so a resume ignores anything 
+ * written to the journal after the checkpoint.  The checkpoint file is written to a temporary file, and then moved over the 
+ * previous checkpoint, so a failure while writing a checkpoint leaves the previous one intact.  The journal and the temporary 
+ * file are forced to disk before the move - the caller must do the same for the output file, so that a checkpoint never records 
+ * output that was lost in a crash.
+ *
+ * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
+ */
+public class ConversionCheckpoint
+{
+	private static final int MAGIC = 0x45434350;  //ECCP
+	private static final int VERSION = 1;
+	private static final int JOURNAL_MAGIC = 0x45434a4c;  //ECJL
+
+	private final File file_;
+	private final long outputOffset_;
+	private final long sourcePosition_;
+	private final int conceptCount_;
+	private final long timestamp_;
+	private final long journalLength_;
+
+	private ConversionCheckpoint(File file, long outputOffset, long sourcePosition, int conceptCount, long timestamp, long journalLength)
+	{
+		file_ = file;
+		outputOffset_ = outputOffset;
+		sourcePosition_ = sourcePosition;
+		conceptCount_ = conceptCount;
+		timestamp_ = timestamp;
+		journalLength_ = journalLength;
+	}
+
+	/**
+	 * @return the UUID journal that goes with the checkpoint file
+	 */
+	public static File getJournalFile(File file)
+	{
+		return new File(file.getParentFile(), file.getName() + ".uuids");
+	}
+
+	/**
+	 * Delete a checkpoint, and its UUID journal - so the next checkpoint starts a new journal.
+	 */
+	public static void delete(File file) throws IOException
+	{
+		Files.deleteIfExists(file.toPath());
+		Files.deleteIfExists(getJournalFile(file).toPath());
+	}
+
+	/**
+	 * Write a checkpoint.  The output must have been flushed and forced to disk, so that outputOffset bytes are in the output file.
+	 * The UUIDs that uuidContext hasn't journaled yet are appended to the journal - after a resume, {@link #restore(LoadStats, 
+	 * ConverterUUIDContext)} has started the journal, so only the new ones are written.
+	 * @param outputOffset - the number of bytes in the output file
+	 * @param sourcePosition - the position in the source that the conversion should resume from
+	 */
+	public static ConversionCheckpoint write(File file, long outputOffset, long sourcePosition, LoadStats ls, ConverterUUIDContext uuidContext) 
+			throws IOException
+	{
+		File journal = getJournalFile(file);
+		long journalLength;
+		try (FileOutputStream journalStream = new FileOutputStream(journal, true))
+		{
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(journalStream, 1 << 16));
+			if (journalStream.getChannel().size() == 0)
+			{
+				out.writeInt(JOURNAL_MAGIC);
+			}
+			uuidContext.writeJournal(out);
+			out.flush();
+			journalStream.getFD().sync();
+			journalLength = journalStream.getChannel().size();
+		}
+
+		ConversionCheckpoint checkpoint = new ConversionCheckpoint(file, outputOffset, sourcePosition, ls.getConceptCount(), System.currentTimeMillis(), 
+				journalLength);
+		File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+		try (FileOutputStream tempStream = new FileOutputStream(temp))
+		{
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(tempStream, 1 << 16));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(checkpoint.outputOffset_);
+			out.writeLong(checkpoint.sourcePosition_);
+			out.writeInt(checkpoint.conceptCount_);
+			out.writeLong(checkpoint.timestamp_);
+			out.writeLong(checkpoint.journalLength_);
+			UUID namespace = uuidContext.getNamespace();
+			out.writeBoolean(namespace != null);
+			if (namespace != null)
+			{
+				out.writeLong(namespace.getMostSignificantBits());
+				out.writeLong(namespace.getLeastSignificantBits());
+			}
+			ls.writeExternal(out);
+			out.flush();
+			tempStream.getFD().sync();
+		}
+		Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		syncDirectory(file.getAbsoluteFile().getParentFile());
+		return checkpoint;
+	}
+
+	/**
+	 * Force the rename of the checkpoint to disk - not every platform can open a directory, so this is best effort.
+	 */
+	private static void syncDirectory(File directory)
+	{
+		try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ))
+		{
+			channel.force(true);
+		}
+		catch (IOException e)
+		{
+			//not supported here (windows) - the move is still atomic, it just may not be durable yet
+		}
+	}
+
+	/**
+	 * Read the position details of a checkpoint - see {@link #restore(LoadStats, ConverterUUIDContext)} for the rest.
+	 */
+	public static ConversionCheckpoint read(File file) throws IOException
+	{
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file))))
+		{
+			return readHeader(file, in);
+		}
+	}
+
+	private static ConversionCheckpoint readHeader(File file, DataInputStream in) throws IOException
+	{
+		if (in.readInt() != MAGIC)
+		{
+			throw new IOException("Not a conversion checkpoint: " + file.getAbsolutePath());
+		}
+		int version = in.readInt();
+		if (version != VERSION)
+		{
+			throw new IOException("Unsupported conversion checkpoint version " + version);
+		}
+		return new ConversionCheckpoint(file, in.readLong(), in.readLong(), in.readInt(), in.readLong(), in.readLong());
+	}
+
+	/**
+	 * Restore the state recorded in the checkpoint - the counts are added to ls (which should be empty), and the UUIDs in the 
+	 * journal to the UUID debug map of uuidContext.  The journal is truncated to its length at the checkpoint, and uuidContext 
+	 * starts journaling, so that the next checkpoint appends to it.
+	 */
+	public void restore(LoadStats ls, ConverterUUIDContext uuidContext) throws IOException
+	{
+		File journal = getJournalFile(file_);
+		try (RandomAccessFile raf = new RandomAccessFile(journal, "rw"))
+		{
+			if (raf.length() < journalLength_)
+			{
+				throw new IOException("The UUID journal " + journal.getAbsolutePath() + " is shorter than the checkpoint expects - " + raf.length() 
+						+ " rather than " + journalLength_ + " bytes");
+			}
+			raf.setLength(journalLength_);
+		}
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file_), 1 << 16)))
+		{
+			readHeader(file_, in);
+			if (in.readBoolean())
+			{
+				UUID namespace = new UUID(in.readLong(), in.readLong());
+				if (!namespace.equals(uuidContext.getNamespace()))
+				{
+					uuidContext.configureNamespace(namespace);
+				}
+			}
+			ls.readExternal(in);
+		}
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journal), 1 << 16)))
+		{
+			if (in.readInt() != JOURNAL_MAGIC)
+			{
+				throw new IOException("Not a UUID journal: " + journal.getAbsolutePath());
+			}
+			uuidContext.readJournal(in, journalLength_ - 4);
+		}
+		uuidContext.startJournal();
+	}
+
+	/**
+	 * @return the number of bytes in the output file, when the checkpoint was taken
+	 */
+	public long getOutputOffset()
+	{
+		return outputOffset_;
+	}
+
+	/**
+	 * @return the position in the source to resume from
+	 */
+	public long getSourcePosition()
+	{
+		return sourcePosition_;
+	}
+
+	public int getConceptCount()
+	{
+		return conceptCount_;
+	}
+
+	/**
+	 * @return when the checkpoint was taken
+	 */
+	public long getTimestamp()
+	{
+		return timestamp_;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "checkpoint at " + new Date(timestamp_) + " - " + conceptCount_ + " concepts, " + outputOffset_ + " output bytes, source position " 
+				+ sourcePosition_;
+	}
+}
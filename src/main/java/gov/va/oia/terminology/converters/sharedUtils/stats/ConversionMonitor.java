@@ -0,0 +1,266 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.va.oia.terminology.converters.sharedUtils.stats;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * {@link ConversionMonitor}
+ *
+ * Publishes the live state of a running conversion over JMX - the {@link LoadStats} counters, the concept rate, the bytes 
+ * written, the UUID debug map size, and heap / GC use - so a long running load can be watched with JConsole (or any JMX client) 
+ * while it runs.
+ * 
+ * The values are read from a {@link Source} each time an attribute is read, so nothing is computed unless someone is watching.
+ * The recent rate and the stall time are updated whenever the attributes are read - they are only as fine grained as the 
+ * polling of the client.
+ *
+ * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
+ */
+public class ConversionMonitor implements ConversionMonitorMBean
+{
+	public static final String DOMAIN = "gov.va.oia.terminology.converters";
+	private static final long SAMPLE_INTERVAL = TimeUnit.SECONDS.toNanos(5);
+	private static final AtomicInteger RUNS = new AtomicInteger();
+
+	/**
+	 * Where the monitored values come from - read on demand, so the values may be set up (or replaced) after registration.
+	 */
+	public interface Source
+	{
+		/**
+		 * @return the current load stats, or null, if not yet available
+		 */
+		public LoadStats getLoadStats();
+
+		/**
+		 * @return the UUID context, or null, if not yet available
+		 */
+		public ConverterUUIDContext getUUIDContext();
+
+		/**
+		 * @return the bytes written to the output so far
+		 */
+		public long getBytesWritten();
+	}
+
+	private final Source source_;
+	private final long startTime_ = System.nanoTime();
+	private ObjectName name_;
+
+	private long sampleTime_ = startTime_;
+	private long sampleCount_ = 0;
+	private double recentRate_ = 0;
+	private long lastCount_ = 0;
+	private long lastProgressTime_ = startTime_;
+
+	public ConversionMonitor(Source source)
+	{
+		source_ = source;
+	}
+
+	/**
+	 * Register with the platform MBean server, as DOMAIN:type=Conversion,name=[name],run=[n] - where n counts the conversions 
+	 * registered in this JVM, so concurrent (or successive) conversions by the same loader don't collide.  Call {@link #unregister()} 
+	 * when the conversion ends - the MBean server holds this monitor (and so its {@link Source}) until then.
+	 */
+	public synchronized void register(String name) throws JMException
+	{
+		ObjectName objectName = new ObjectName(DOMAIN + ":type=Conversion,name=" + ObjectName.quote(name) + ",run=" + RUNS.incrementAndGet());
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+		name_ = objectName;
+	}
+
+	public synchronized void unregister()
+	{
+		if (name_ != null)
+		{
+			try
+			{
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(name_);
+			}
+			catch (JMException e)
+			{
+				//already gone
+			}
+			name_ = null;
+		}
+	}
+
+	@Override
+	public long getElapsedSeconds()
+	{
+		return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startTime_);
+	}
+
+	@Override
+	public long getConceptCount()
+	{
+		long count = conceptCount();
+		sample(count);
+		return count;
+	}
+
+	@Override
+	public long getClonedConceptCount()
+	{
+		LoadStats ls = source_.getLoadStats();
+		return ls == null ? 0 : ls.getClonedConceptCount();
+	}
+
+	@Override
+	public long getDescriptionCount()
+	{
+		LoadStats ls = source_.getLoadStats();
+		return ls == null ? 0 : ls.getDescriptionCount();
+	}
+
+	@Override
+	public long getRelationshipCount()
+	{
+		LoadStats ls = source_.getLoadStats();
+		return ls == null ? 0 : ls.getRelationshipCount();
+	}
+
+	@Override
+	public long getAnnotationCount()
+	{
+		LoadStats ls = source_.getLoadStats();
+		return ls == null ? 0 : ls.getAnnotationCount();
+	}
+
+	@Override
+	public long getRefsetMemberCount()
+	{
+		LoadStats ls = source_.getLoadStats();
+		return ls == null ? 0 : ls.getRefsetMemberCount();
+	}
+
+	@Override
+	public double getConceptsPerSecond()
+	{
+		long count = conceptCount();
+		sample(count);
+		long elapsed = System.nanoTime() - startTime_;
+		return elapsed <= 0 ? 0 : count / (elapsed / 1e9);
+	}
+
+	@Override
+	public synchronized double getRecentConceptsPerSecond()
+	{
+		sample(conceptCount());
+		return recentRate_;
+	}
+
+	@Override
+	public synchronized long getSecondsSinceProgress()
+	{
+		sample(conceptCount());
+		return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - lastProgressTime_);
+	}
+
+	@Override
+	public long getBytesWritten()
+	{
+		return source_.getBytesWritten();
+	}
+
+	@Override
+	public int getUUIDMapSize()
+	{
+		ConverterUUIDContext context = source_.getUUIDContext();
+		return context == null ? 0 : context.getUUIDMapSize();
+	}
+
+	@Override
+	public long getHeapUsed()
+	{
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+
+	@Override
+	public long getHeapMax()
+	{
+		MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+		return heap.getMax() < 0 ? heap.getCommitted() : heap.getMax();
+	}
+
+	@Override
+	public long getGcTimeMillis()
+	{
+		long total = 0;
+		for (GarbageCollectorMXBean gc : gcs())
+		{
+			total += Math.max(0, gc.getCollectionTime());
+		}
+		return total;
+	}
+
+	@Override
+	public long getGcCount()
+	{
+		long total = 0;
+		for (GarbageCollectorMXBean gc : gcs())
+		{
+			total += Math.max(0, gc.getCollectionCount());
+		}
+		return total;
+	}
+
+	@Override
+	public String[] getLoadStatsSummary()
+	{
+		LoadStats ls = source_.getLoadStats();
+		return ls == null ? new String[0] : ls.getSummary().toArray(new String[0]);
+	}
+
+	private long conceptCount()
+	{
+		LoadStats ls = source_.getLoadStats();
+		return ls == null ? 0 : ls.getConceptCount();
+	}
+
+	private synchronized void sample(long count)
+	{
+		long now = System.nanoTime();
+		if (count != lastCount_)
+		{
+			lastCount_ = count;
+			lastProgressTime_ = now;
+		}
+		if (now - sampleTime_ >= SAMPLE_INTERVAL)
+		{
+			recentRate_ = Math.max(0, count - sampleCount_) / ((now - sampleTime_) / 1e9);  //the count restarts, if the load stats are cleared
+			sampleTime_ = now;
+			sampleCount_ = count;
+		}
+	}
+
+	private static List<GarbageCollectorMXBean> gcs()
+	{
+		return ManagementFactory.getGarbageCollectorMXBeans();
+	}
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.va.oia.terminology.converters.sharedUtils.stats;
+
+/**
+ * {@link ConversionMonitorMBean}
+ *
+ * The JMX attributes of a running conversion - see {@link ConversionMonitor}.
+ *
+ * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
+ */
+public interface ConversionMonitorMBean
+{
+	public long getElapsedSeconds();
+
+	public long getConceptCount();
+
+	public long getClonedConceptCount();
+
+	public long getDescriptionCount();
+
+	public long getRelationshipCount();
+
+	public long getAnnotationCount();
+
+	public long getRefsetMemberCount();
+
+	/**
+	 * Concepts per second, averaged over the whole conversion
+	 */
+	public double getConceptsPerSecond();
+
+	/**
+	 * Concepts per second, over (roughly) the last sample interval
+	 */
+	public double getRecentConceptsPerSecond();
+
+	/**
+	 * Seconds since the concept count last changed - a growing value means the conversion has stalled (or is in a phase that
+	 * doesn't create concepts).
+	 */
+	public long getSecondsSinceProgress();
+
+	public long getBytesWritten();
+
+	public int getUUIDMapSize();
+
+	public long getHeapUsed();
+
+	public long getHeapMax();
+
+	/**
+	 * Total time spent in garbage collection, across all collectors
+	 */
+	public long getGcTimeMillis();
+
+	public long getGcCount();
+
+	/**
+	 * The current {@link LoadStats#getSummary()}
+	 */
+	public String[] getLoadStatsSummary();
+}
@@ -18,32 +18,76 @@
  */
 package gov.va.oia.terminology.converters.sharedUtils.stats;
 
-import gov.va.oia.terminology.converters.sharedUtils.ConsoleUtil;
 import gov.va.oia.terminology.converters.sharedUtils.ConverterBaseMojo;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.util.Hashtable;
-import java.util.Map;
 import java.util.UUID;
-import org.ihtsdo.otf.tcc.api.uuid.UuidT5Generator;
 
 /**
  * A utility class for generating UUIDs which keeps track of what was used to generate the UUIDs - which
  * can then be dumped to disk (or looked up by UUID)
  * 
+ * The static methods here operate on a default, JVM wide {@link ConverterUUIDContext}.  Conversions which need to run alongside
+ * other conversions in the same JVM should create their own {@link ConverterUUIDContext} instead, and pass it to EConceptUtility
+ * and the PropertyType constructors.
+ * 
  * The in-memory map can be disabled by setting the static flag here - or - with loaders that extend {@link ConverterBaseMojo}
  * by setting the system property skipUUIDDebug to true - or in maven speak - '-DskipUUIDDebug' on the command line.
  * 
+ * Alternatively, the map can be put in a duplicate detection only mode, by setting the static dupeCheckOnly_ flag here - or - with 
+ * loaders that extend {@link ConverterBaseMojo} by setting the system property uuidDupeCheckOnly to true.  In this mode, the UUIDs are 
+ * still tracked (so duplicates are still detected) but the creation strings are not retained, so {@link #getUUIDCreationString(UUID)}
+ * will return null, and the debug file is not populated.
+ * 
+ * The map itself is a {@link StripedUUIDMap} of {@link PrimitiveUUIDMap}s - which store the UUIDs as raw longs, and the creation 
+ * strings as packed UTF-8 - so the overhead per UUID is a small fraction of what a regular map would require, and loaders may 
+ * generate UUIDs from multiple threads without serializing on a single lock.  For terminologies where even that 
+ * is too large, {@link #enableDiskBackedMap(File)} switches to a {@link MappedUUIDMap}, which keeps the map in memory mapped files
+ * (with loaders that extend {@link ConverterBaseMojo} - set the system property uuidDebugOnDisk to true).
+ * 
  * @author darmbrust
  */
 
 public class ConverterUUID
 {
 	public static boolean disableUUIDMap_ = false;  //Some loaders need to disable this due to memory constraints
-	private static Hashtable<UUID, String> masterUUIDMap_ = new Hashtable<UUID, String>();
-	private static UUID namespace_ = null;
+	public static boolean dupeCheckOnly_ = false;  //Keep duplicate detection, but don't store the creation strings
+	
+	//The default context keeps its settings in the static flags above, so existing code that sets them continues to work.
+	private static final ConverterUUIDContext defaultContext_ = new ConverterUUIDContext()
+	{
+		@Override
+		public void setUUIDMapDisabled(boolean disableUUIDMap)
+		{
+			disableUUIDMap_ = disableUUIDMap;
+		}
+
+		@Override
+		public boolean isUUIDMapDisabled()
+		{
+			return disableUUIDMap_;
+		}
+
+		@Override
+		public void setDupeCheckOnly(boolean dupeCheckOnly)
+		{
+			dupeCheckOnly_ = dupeCheckOnly;
+		}
+
+		@Override
+		public boolean isDupeCheckOnly()
+		{
+			return dupeCheckOnly_;
+		}
+	};
+	
+	/**
+	 * @return the context that the static methods of this class operate on.
+	 */
+	public static ConverterUUIDContext getDefaultContext()
+	{
+		return defaultContext_;
+	}
 
 	/**
 	 * Create a new Type5 UUID using the provided name as the seed in the configured namespace.
@@ -52,24 +96,18 @@ public class ConverterUUID
 	 */
 	public static UUID createNamespaceUUIDFromStrings(String ... values)
 	{
-		StringBuilder uuidKey = new StringBuilder();
-		for (String s : values)
-		{
-			if (s != null)
-			{
-				uuidKey.append(s);
-				uuidKey.append("|");
-			}
-		}
-		if (uuidKey.length() > 1)
-		{
-			uuidKey.setLength(uuidKey.length() - 1);
-		}
-		else
-		{
-			throw new RuntimeException("No string provided!");
-		}
-		return createNamespaceUUIDFromString(uuidKey.toString());
+		return defaultContext_.createNamespaceUUIDFromStrings(values);
+	}
+	
+	/**
+	 * Start a new Type5 UUID in the configured namespace, which is seeded by the values added to the returned builder.
+	 * See {@link ConverterUUIDContext#uuidBuilder()}.
+	 * 
+	 * Throws a runtime exception if the namespace has not been configured.
+	 */
+	public static Type5UUIDBuilder uuidBuilder()
+	{
+		return defaultContext_.uuidBuilder();
 	}
 
 	/**
@@ -79,7 +117,7 @@ public class ConverterUUID
 	 */
 	public static UUID createNamespaceUUIDFromString(String name)
 	{
-		return createNamespaceUUIDFromString(name, false);
+		return defaultContext_.createNamespaceUUIDFromString(name);
 	}
 	
 	/**
@@ -92,16 +130,7 @@ public class ConverterUUID
 	 */
 	public static UUID createNamespaceUUIDFromString(String name, boolean skipDupeCheck)
 	{
-		initCheck();
-		return createNamespaceUUIDFromString(namespace_, name, skipDupeCheck);
-	}
-	
-	private static void initCheck()
-	{
-		if (namespace_ == null)
-		{
-			throw new RuntimeException("Namespace UUID has not yet been initialized");
-		}
+		return defaultContext_.createNamespaceUUIDFromString(name, skipDupeCheck);
 	}
 	
 	/**
@@ -109,7 +138,7 @@ public class ConverterUUID
 	 */
 	public static UUID createNamespaceUUIDFromString(UUID namespace, String name)
 	{
-		return createNamespaceUUIDFromString(namespace, name, false);
+		return defaultContext_.createNamespaceUUIDFromString(namespace, name);
 	}
 	
 	/**
@@ -120,25 +149,7 @@ public class ConverterUUID
 	 */
 	public static UUID createNamespaceUUIDFromString(UUID namespace, String name, boolean skipDupeCheck)
 	{
-		UUID uuid;
-		try
-		{
-			uuid = UuidT5Generator.get(namespace, name);
-		}
-		catch (Exception e)
-		{
-			throw new RuntimeException("Unexpected error configuring UUID generator");
-		}
-		
-		if (!disableUUIDMap_)
-		{
-			String putResult = masterUUIDMap_.put(uuid, name);
-			if (!skipDupeCheck && putResult != null)
-			{
-				throw new RuntimeException("Just made a duplicate UUID! '" + name + "' -> " + uuid);
-			}
-		}
-		return uuid;
+		return defaultContext_.createNamespaceUUIDFromString(namespace, name, skipDupeCheck);
 	}
 	
 	/**
@@ -146,11 +157,7 @@ public class ConverterUUID
 	 */
 	public static String getUUIDCreationString(UUID uuid)
 	{
-		if (uuid == null)
-		{
-			return null;
-		}
-		return masterUUIDMap_.get(uuid);
+		return defaultContext_.getUUIDCreationString(uuid);
 	}
 
 	/**
@@ -158,22 +165,34 @@ public class ConverterUUID
 	 */
 	public static void dump(File outputDirectory, String prefix) throws IOException
 	{
-		BufferedWriter br = new BufferedWriter(new FileWriter(new File(outputDirectory, prefix + "DebugMap.txt")));
-		if (disableUUIDMap_)
-		{
-			ConsoleUtil.println("UUID Debug map was disabled");
-			br.write("Note - the UUID debug feature was disabled, this file is incomplete" + System.getProperty("line.separator"));
-		}
-		for (Map.Entry<UUID, String> entry : masterUUIDMap_.entrySet())
-		{
-			br.write(entry.getKey() + " - " + entry.getValue() + System.getProperty("line.separator"));
-		}
-		br.close();
+		defaultContext_.dump(outputDirectory, prefix);
+	}
+
+	/**
+	 * Move the UUID debug map out of the heap, and into memory mapped files in the specified directory.  Any existing 
+	 * entries are carried over.
+	 */
+	public static void enableDiskBackedMap(File directory) throws IOException
+	{
+		defaultContext_.enableDiskBackedMap(directory);
+	}
+
+	/**
+	 * Load the UUID debug map file of the previous release - see {@link ConverterUUIDContext#loadPreviousRelease(File, File)}
+	 */
+	public static void loadPreviousRelease(File previousDebugMap, File workDirectory) throws IOException
+	{
+		defaultContext_.loadPreviousRelease(previousDebugMap, workDirectory);
 	}
 
 	public static void clearCache()
 	{
-		masterUUIDMap_.clear();
+		defaultContext_.clearCache();
+	}
+
+	public static int getUUIDMapSize()
+	{
+		return defaultContext_.getUUIDMapSize();
 	}
 	
 	/**
@@ -181,14 +200,7 @@ public class ConverterUUID
 	 */
 	public static void addMapping(String value, UUID uuid)
 	{
-		if (!disableUUIDMap_)
-		{
-			String putResult = masterUUIDMap_.put(uuid, value);
-			if (putResult != null)
-			{
-				throw new RuntimeException("Just made a duplicate UUID! '" + value + "' -> " + uuid);
-			}
-		}
+		defaultContext_.addMapping(value, uuid);
 	}
 	
 	/**
@@ -196,20 +208,16 @@ public class ConverterUUID
 	 */
 	public static void removeMapping(UUID uuid)
 	{
-		masterUUIDMap_.remove(uuid);
+		defaultContext_.removeMapping(uuid);
 	}
 	
 	public static UUID getNamespace()
 	{
-		return namespace_;
+		return defaultContext_.getNamespace();
 	}
 	
 	public static void configureNamespace(UUID namespace)
 	{
-		if (namespace_ != null)
-		{
-			ConsoleUtil.println("Reconfiguring Namespace!");
-		}
-		namespace_ = namespace;
+		defaultContext_.configureNamespace(namespace);
 	}
 }
@@ -0,0 +1,717 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.va.oia.terminology.converters.sharedUtils.stats;
+
+import gov.va.oia.terminology.converters.sharedUtils.ConsoleUtil;
+import java.io.BufferedWriter;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+import org.ihtsdo.otf.tcc.api.uuid.UuidT5Generator;
+
+/**
+ * {@link ConverterUUIDContext}
+ *
+ * The UUID generation state for a single conversion - the namespace, the UUID debug map, and the debug map settings.
+ * See {@link ConverterUUID} for a description of the debug map modes.
+ *
+ * Each conversion that should be isolated from the others running in the same JVM should create its own context, and pass
+ * it to the EConceptUtility (and PropertyType) constructors.  Code that doesn't do so shares the default context behind
+ * the static {@link ConverterUUID} methods.
+ *
+ * UUIDs may be generated from many threads at once - the in memory debug map is a {@link StripedUUIDMap}, so concurrent 
+ * writers rarely contend, while duplicate detection remains exact.
+ *
+ * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
+ */
+public class ConverterUUIDContext
+{
+	private static final int JOURNAL_NO_VALUE = -1;
+	private static final int JOURNAL_REMOVED = -2;
+	private static volatile Boolean digestMatchesGenerator_ = null;
+	private static final ThreadLocal<Type5UUIDBuilder> builders_ = new ThreadLocal<Type5UUIDBuilder>()
+	{
+		@Override
+		protected Type5UUIDBuilder initialValue()
+		{
+			return new Type5UUIDBuilder();
+		}
+	};
+
+	private boolean disableUUIDMap_ = false;
+	private boolean dupeCheckOnly_ = false;
+	private volatile boolean uuidTimingEnabled_ = false;
+	private volatile UUIDDebugMap masterUUIDMap_ = new StripedUUIDMap();
+	private volatile UUID namespace_ = null;
+	private SortedDebugMapWriter.SortBy dumpSortBy_ = null;
+	private volatile PreviousReleaseUUIDIndex previousRelease_ = null;
+	private final LongAdder uuidCount_ = new LongAdder();
+	private final LongAdder uuidNanos_ = new LongAdder();
+	private volatile ConcurrentLinkedQueue<Object> journal_ = null;  //UUIDs added (or Removed) since the last writeJournal
+
+	/**
+	 * Some loaders need to disable the debug map due to memory constraints - this also disables duplicate detection.
+	 */
+	public void setUUIDMapDisabled(boolean disableUUIDMap)
+	{
+		disableUUIDMap_ = disableUUIDMap;
+	}
+
+	public boolean isUUIDMapDisabled()
+	{
+		return disableUUIDMap_;
+	}
+
+	/**
+	 * Keep duplicate detection, but don't store the creation strings
+	 */
+	public void setDupeCheckOnly(boolean dupeCheckOnly)
+	{
+		dupeCheckOnly_ = dupeCheckOnly;
+	}
+
+	public boolean isDupeCheckOnly()
+	{
+		return dupeCheckOnly_;
+	}
+
+	/**
+	 * Time the generation of each UUID, for {@link #getUUIDGenerationNanos()}.  Off by default, as it costs two System.nanoTime() 
+	 * calls per UUID.
+	 */
+	public void setUUIDTimingEnabled(boolean uuidTimingEnabled)
+	{
+		uuidTimingEnabled_ = uuidTimingEnabled;
+	}
+
+	public boolean isUUIDTimingEnabled()
+	{
+		return uuidTimingEnabled_;
+	}
+
+	/**
+	 * Create a new Type5 UUID using the provided name as the seed in the configured namespace.
+	 *
+	 * Throws a runtime exception if the namespace has not been configured.
+	 */
+	public UUID createNamespaceUUIDFromStrings(String ... values)
+	{
+		Type5UUIDBuilder builder = uuidBuilder();
+		for (String s : values)
+		{
+			builder.add(s);
+		}
+		return builder.create();
+	}
+
+	/**
+	 * Start a new Type5 UUID in the configured namespace, which is seeded by the values added to the returned builder.
+	 * This creates the same UUID as {@link #createNamespaceUUIDFromStrings(String...)} with the String form of each value -
+	 * but without building any of the Strings (unless they are needed for the UUID debug map).  Finish with
+	 * {@link Type5UUIDBuilder#create()}.
+	 *
+	 * Throws a runtime exception if the namespace has not been configured.
+	 */
+	public Type5UUIDBuilder uuidBuilder()
+	{
+		initCheck();
+		return acquire(namespace_, !digestMatchesGenerator() || (!isUUIDMapDisabled() && !isDupeCheckOnly()));
+	}
+
+	private Type5UUIDBuilder acquire(UUID namespace, boolean keepName)
+	{
+		Type5UUIDBuilder builder = builders_.get();
+		if (builder.inUse_)
+		{
+			//Nested use on the same thread (or a builder that was abandoned before create()) - don't disturb it.
+			builder = new Type5UUIDBuilder();
+		}
+		builder.inUse_ = true;
+		return builder.reset(this, namespace, keepName);
+	}
+
+	UUID finish(Type5UUIDBuilder builder)
+	{
+		UUID uuid;
+		String name;
+		try
+		{
+			if (!builder.hasValues())
+			{
+				throw new RuntimeException("No string provided!");
+			}
+			name = builder.getName();
+			if (digestMatchesGenerator())
+			{
+				uuid = builder.digest();
+			}
+			else
+			{
+				uuid = UuidT5Generator.get(builder.getNamespace(), name);
+			}
+		}
+		catch (NoSuchAlgorithmException | UnsupportedEncodingException e)
+		{
+			throw new RuntimeException("Unexpected error configuring UUID generator");
+		}
+		finally
+		{
+			builder.inUse_ = false;
+		}
+		register(uuid, name, builder.skipDupeCheck_);
+		recordTiming(builder.timerStart_);
+		return uuid;
+	}
+	
+	/**
+	 * Count a generated UUID - and its time, if it was timed (timerStart != 0)
+	 */
+	private void recordTiming(long timerStart)
+	{
+		uuidCount_.increment();
+		if (timerStart != 0)
+		{
+			uuidNanos_.add(System.nanoTime() - timerStart);
+		}
+	}
+	
+	/**
+	 * @return the number of UUIDs generated by this context
+	 */
+	public long getUUIDGenerationCount()
+	{
+		return uuidCount_.sum();
+	}
+	
+	/**
+	 * @return the total time spent generating and registering UUIDs in this context (not counting UUIDs generated by the 
+	 * UuidT5Generator fallback) - always 0 unless {@link #setUUIDTimingEnabled(boolean)} is on
+	 */
+	public long getUUIDGenerationNanos()
+	{
+		return uuidNanos_.sum();
+	}
+
+	/**
+	 * The builder reproduces the UuidT5Generator algorithm - check once that it really does produce identical UUIDs on this
+	 * platform, falling back to UuidT5Generator if not.
+	 */
+	private static boolean digestMatchesGenerator()
+	{
+		Boolean result = digestMatchesGenerator_;
+		if (result == null)
+		{
+			result = true;
+			try
+			{
+				UUID namespace = UUID.fromString("4b1f2d4e-6f5a-5d6c-9e3b-2a1c0f9e8d7c");
+				Type5UUIDBuilder builder = new Type5UUIDBuilder();
+				for (String s : new String[] {"", "a", "Fully Specified Name", "caf\u00e9 \u00ff", "\u6f22\u5b57", "\ud83d\ude00|\ud800x\udc00"})
+				{
+					if (!builder.reset(null, namespace, false).add(s).digest().equals(UuidT5Generator.get(namespace, s)))
+					{
+						result = false;
+					}
+				}
+				if (!builder.reset(null, namespace, false).add(namespace).add("x").add(SelfCheckValue.SAMPLE).add(true).add(-42).digest()
+						.equals(UuidT5Generator.get(namespace, namespace.toString() + "|x|SAMPLE|true|-42")))
+				{
+					result = false;
+				}
+			}
+			catch (NoSuchAlgorithmException | UnsupportedEncodingException e)
+			{
+				result = false;
+			}
+			if (!result)
+			{
+				ConsoleUtil.printErrorln("The optimized UUID generator does not match UuidT5Generator on this platform - falling back to UuidT5Generator");
+			}
+			digestMatchesGenerator_ = result;
+		}
+		return result;
+	}
+
+	private enum SelfCheckValue {SAMPLE};
+
+	/**
+	 * Create a new Type5 UUID using the provided name as the seed in the configured namespace.
+	 *
+	 * Throws a runtime exception if the namespace has not been configured.
+	 */
+	public UUID createNamespaceUUIDFromString(String name)
+	{
+		return createNamespaceUUIDFromString(name, false);
+	}
+
+	/**
+	 * Create a new Type5 UUID using the provided name as the seed in the configured namespace.
+	 *
+	 * Throws a runtime exception if the namespace has not been configured.
+	 * @param skipDupeCheck can be used to bypass the duplicate checking function - useful in cases where you know
+	 * you are creating the same UUID more than once.  Normally, this method throws a runtime exception
+	 * if the same UUID is generated more than once.
+	 */
+	public UUID createNamespaceUUIDFromString(String name, boolean skipDupeCheck)
+	{
+		initCheck();
+		return createNamespaceUUIDFromString(namespace_, name, skipDupeCheck);
+	}
+
+	private void initCheck()
+	{
+		if (namespace_ == null)
+		{
+			throw new RuntimeException("Namespace UUID has not yet been initialized");
+		}
+	}
+
+	/**
+	 * Create a new Type5 UUID using the provided namespace, and provided name as the seed.
+	 */
+	public UUID createNamespaceUUIDFromString(UUID namespace, String name)
+	{
+		return createNamespaceUUIDFromString(namespace, name, false);
+	}
+
+	/**
+	 * Create a new Type5 UUID using the provided namespace, and provided name as the seed.
+	 * @param skipDupeCheck can be used to bypass the duplicate checking function - useful in cases where you know
+	 * you are creating the same UUID more than once.  Normally, this method throws a runtime exception
+	 * if the same UUID is generated more than once.
+	 */
+	public UUID createNamespaceUUIDFromString(UUID namespace, String name, boolean skipDupeCheck)
+	{
+		UUID uuid;
+		long timerStart = 0;
+		try
+		{
+			if (name != null && digestMatchesGenerator())
+			{
+				Type5UUIDBuilder builder = acquire(namespace, false);
+				timerStart = builder.timerStart_;
+				try
+				{
+					uuid = builder.add(name).digest();
+				}
+				finally
+				{
+					builder.inUse_ = false;
+				}
+			}
+			else
+			{
+				uuid = UuidT5Generator.get(namespace, name);
+			}
+		}
+		catch (Exception e)
+		{
+			throw new RuntimeException("Unexpected error configuring UUID generator");
+		}
+
+		register(uuid, name, skipDupeCheck);
+		recordTiming(timerStart);
+		return uuid;
+	}
+
+	private void register(UUID uuid, String name, boolean skipDupeCheck)
+	{
+		boolean added = true;
+		if (!isUUIDMapDisabled())
+		{
+			added = store(uuid, name);
+			if (!added && !skipDupeCheck)
+			{
+				throw new RuntimeException("Just made a duplicate UUID! '" + (name == null ? "(creation string not retained)" : name) + "' -> " + uuid);
+			}
+		}
+		recordGenerated(uuid, added);
+	}
+	
+	private void recordGenerated(UUID uuid, boolean firstTime)
+	{
+		PreviousReleaseUUIDIndex previousRelease = previousRelease_;
+		if (previousRelease != null && firstTime)
+		{
+			previousRelease.recordGenerated(uuid);
+		}
+		ConcurrentLinkedQueue<Object> journal = journal_;
+		if (journal != null && firstTime && !isUUIDMapDisabled())
+		{
+			journal.add(uuid);
+		}
+	}
+
+	/**
+	 * Return the string that was used to generate this UUID (if available - null if not)
+	 */
+	public String getUUIDCreationString(UUID uuid)
+	{
+		if (uuid == null)
+		{
+			return null;
+		}
+		return masterUUIDMap_.get(uuid);
+	}
+
+	/**
+	 * Write out a debug file with all of the UUID - String mappings.  If a sort order has been set with 
+	 * {@link #setDumpSortOrder(SortedDebugMapWriter.SortBy)}, the file is sorted, gzip compressed, and named prefix + "DebugMap.txt.gz" - 
+	 * otherwise, it is written in map order, to prefix + "DebugMap.txt".
+	 */
+	public void dump(File outputDirectory, String prefix) throws IOException
+	{
+		PreviousReleaseUUIDIndex previousRelease = previousRelease_;
+		if (previousRelease != null)
+		{
+			ConsoleUtil.println(previousRelease.getSummary());
+			try (Writer retired = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(outputDirectory, prefix + "RetiredUUIDs.txt")), 
+					StandardCharsets.UTF_8)))
+			{
+				previousRelease.writeRetired(retired);
+			}
+		}
+		
+		SortedDebugMapWriter.SortBy sortBy = dumpSortBy_;
+		Writer br;
+		if (sortBy == null)
+		{
+			br = new BufferedWriter(new FileWriter(new File(outputDirectory, prefix + "DebugMap.txt")));
+		}
+		else
+		{
+			br = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(new File(outputDirectory, prefix + "DebugMap.txt.gz")), 
+					1 << 16), StandardCharsets.UTF_8), 1 << 16);
+		}
+		try
+		{
+			if (isUUIDMapDisabled())
+			{
+				ConsoleUtil.println("UUID Debug map was disabled");
+				br.write("Note - the UUID debug feature was disabled, this file is incomplete" + System.getProperty("line.separator"));
+			}
+			else if (isDupeCheckOnly())
+			{
+				ConsoleUtil.println("UUID Debug map was in duplicate detection only mode - creation strings were not retained");
+				br.write("Note - the UUID debug feature was in duplicate detection only mode, this file is incomplete" + System.getProperty("line.separator"));
+				return;
+			}
+			if (sortBy == null)
+			{
+				Iterator<Map.Entry<UUID, String>> entries = masterUUIDMap_.iterator();
+				while (entries.hasNext())
+				{
+					Map.Entry<UUID, String> entry = entries.next();
+					br.write(entry.getKey() + " - " + entry.getValue() + System.getProperty("line.separator"));
+				}
+			}
+			else
+			{
+				new SortedDebugMapWriter(sortBy, outputDirectory).write(masterUUIDMap_.iterator(), br);
+			}
+		}
+		finally
+		{
+			br.close();
+		}
+	}
+	
+	/**
+	 * @param sortBy - the order to write the {@link #dump(File, String)} file in - sorted output is also gzip compressed.  
+	 * Null for the original unsorted, uncompressed output.
+	 */
+	public void setDumpSortOrder(SortedDebugMapWriter.SortBy sortBy)
+	{
+		dumpSortBy_ = sortBy;
+	}
+
+	public SortedDebugMapWriter.SortBy getDumpSortOrder()
+	{
+		return dumpSortBy_;
+	}
+
+	/**
+	 * Move the UUID debug map out of the heap, and into memory mapped files in the specified directory.  Any existing
+	 * entries are carried over.
+	 */
+	public synchronized void enableDiskBackedMap(File directory) throws IOException
+	{
+		if (masterUUIDMap_ instanceof MappedUUIDMap)
+		{
+			return;
+		}
+		UUIDDebugMap diskMap = new MappedUUIDMap(directory);
+		Iterator<Map.Entry<UUID, String>> entries = masterUUIDMap_.iterator();
+		while (entries.hasNext())
+		{
+			Map.Entry<UUID, String> entry = entries.next();
+			if (entry.getValue() == null)
+			{
+				diskMap.add(entry.getKey());
+			}
+			else
+			{
+				diskMap.put(entry.getKey(), entry.getValue());
+			}
+		}
+		masterUUIDMap_.close();
+		masterUUIDMap_ = diskMap;
+		ConsoleUtil.println("The UUID Debug map is being stored on disk, in " + directory.getAbsolutePath());
+	}
+
+	/**
+	 * Load the UUID debug map file of the previous release of this conversion (a DebugMap.txt or DebugMap.txt.gz file written by 
+	 * {@link #dump(File, String)}) as a read only, memory mapped index.  From then on, generated UUIDs are counted as unchanged 
+	 * or new - and {@link #dump(File, String)} also writes the retired UUIDs, to prefix + "RetiredUUIDs.txt".
+	 * @param workDirectory - where to put the index files
+	 */
+	public synchronized void loadPreviousRelease(File previousDebugMap, File workDirectory) throws IOException
+	{
+		if (previousRelease_ != null)
+		{
+			previousRelease_.close();
+		}
+		previousRelease_ = new PreviousReleaseUUIDIndex(previousDebugMap, workDirectory);
+		ConsoleUtil.println("Loaded " + previousRelease_.size() + " UUIDs from the previous release UUID Debug map " + previousDebugMap.getAbsolutePath());
+		if (previousRelease_.size() == 0)
+		{
+			ConsoleUtil.printErrorln("The previous release UUID Debug map contained no entries - was it written with the UUID debug map disabled?");
+		}
+	}
+	
+	/**
+	 * @return the index of the previous release - or null, if {@link #loadPreviousRelease(File, File)} was not called.
+	 */
+	public PreviousReleaseUUIDIndex getPreviousRelease()
+	{
+		return previousRelease_;
+	}
+
+	/**
+	 * Start recording the UUIDs added to (and removed from) the UUID debug map, for {@link #writeJournal(DataOutput)}.
+	 */
+	public synchronized void startJournal()
+	{
+		if (journal_ == null)
+		{
+			journal_ = new ConcurrentLinkedQueue<>();
+		}
+	}
+
+	/**
+	 * Write the changes to the UUID debug map since the last call - for {@link #readJournal(DataInput, long)}, when resuming a 
+	 * conversion.  If the journal wasn't started, this starts it, and writes every entry in the map.  So a journal file that is 
+	 * only ever appended to by this method holds the whole map - and each call only costs the UUIDs added since the last one.
+	 * @return the number of entries written
+	 */
+	public synchronized long writeJournal(DataOutput out) throws IOException
+	{
+		long written = 0;
+		if (journal_ == null)
+		{
+			//started first, so that UUIDs added during the iteration are picked up below - they may be written twice, which is harmless
+			startJournal();
+			Iterator<Map.Entry<UUID, String>> entries = masterUUIDMap_.iterator();
+			while (entries.hasNext())
+			{
+				Map.Entry<UUID, String> entry = entries.next();
+				writeJournalEntry(out, entry.getKey(), entry.getValue() == null ? JOURNAL_NO_VALUE : 0, entry.getValue());
+				written++;
+			}
+		}
+		Object item;
+		while ((item = journal_.poll()) != null)
+		{
+			if (item instanceof Removed)
+			{
+				writeJournalEntry(out, ((Removed) item).uuid_, JOURNAL_REMOVED, null);
+			}
+			else
+			{
+				String value = isDupeCheckOnly() ? null : masterUUIDMap_.get((UUID) item);
+				writeJournalEntry(out, (UUID) item, value == null ? JOURNAL_NO_VALUE : 0, value);
+			}
+			written++;
+		}
+		return written;
+	}
+
+	private static void writeJournalEntry(DataOutput out, UUID uuid, int kind, String value) throws IOException
+	{
+		out.writeLong(uuid.getMostSignificantBits());
+		out.writeLong(uuid.getLeastSignificantBits());
+		if (value == null)
+		{
+			out.writeInt(kind);
+		}
+		else
+		{
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	/**
+	 * Apply length bytes of a journal written by {@link #writeJournal(DataOutput)} to the UUID debug map (entries already in the 
+	 * map are kept) - so the UUIDs generated before the journal was written are detected as duplicates, and counted against the 
+	 * previous release, if one is loaded.  The changes applied are not journaled again.
+	 */
+	public void readJournal(DataInput in, long length) throws IOException
+	{
+		ConcurrentLinkedQueue<Object> journal = journal_;
+		journal_ = null;
+		try
+		{
+			byte[] buffer = new byte[256];
+			long read = 0;
+			while (read < length)
+			{
+				UUID uuid = new UUID(in.readLong(), in.readLong());
+				int valueLength = in.readInt();
+				read += 20;
+				if (valueLength == JOURNAL_REMOVED)
+				{
+					masterUUIDMap_.remove(uuid);
+					continue;
+				}
+				String value = null;
+				if (valueLength >= 0)
+				{
+					if (buffer.length < valueLength)
+					{
+						buffer = new byte[valueLength];
+					}
+					in.readFully(buffer, 0, valueLength);
+					value = new String(buffer, 0, valueLength, StandardCharsets.UTF_8);
+					read += valueLength;
+				}
+				else if (valueLength != JOURNAL_NO_VALUE)
+				{
+					throw new IOException("Invalid UUID journal entry length " + valueLength);
+				}
+				boolean added = true;
+				if (!isUUIDMapDisabled())
+				{
+					added = store(uuid, value);
+				}
+				recordGenerated(uuid, added);
+			}
+			if (read != length)
+			{
+				throw new IOException("The UUID journal ends part way through an entry");
+			}
+		}
+		finally
+		{
+			journal_ = journal;
+		}
+	}
+
+	public void clearCache()
+	{
+		masterUUIDMap_.clear();
+	}
+
+	/**
+	 * @return the number of UUIDs currently held in the UUID debug map (0, if it is disabled)
+	 */
+	public int getUUIDMapSize()
+	{
+		return masterUUIDMap_.size();
+	}
+
+	/**
+	 * Allow this map to be updated with UUIDs that were not generated via this utility class
+	 */
+	public void addMapping(String value, UUID uuid)
+	{
+		if (!isUUIDMapDisabled())
+		{
+			if (!store(uuid, value))
+			{
+				throw new RuntimeException("Just made a duplicate UUID! '" + value + "' -> " + uuid);
+			}
+		}
+		recordGenerated(uuid, true);
+	}
+
+	/**
+	 * @return true, if the UUID was not previously in the map (with or without a creation string) - a duplicate leaves the 
+	 *     existing entry as is.
+	 */
+	private boolean store(UUID uuid, String value)
+	{
+		return masterUUIDMap_.add(uuid, isDupeCheckOnly() ? null : value);
+	}
+
+	/**
+	 * In some scenarios, it isn't desireable to cache every creation string - allow the removal in these cases.
+	 */
+	public void removeMapping(UUID uuid)
+	{
+		masterUUIDMap_.remove(uuid);
+		ConcurrentLinkedQueue<Object> journal = journal_;
+		if (journal != null)
+		{
+			journal.add(new Removed(uuid));
+		}
+	}
+
+	public UUID getNamespace()
+	{
+		return namespace_;
+	}
+
+	public void configureNamespace(UUID namespace)
+	{
+		if (namespace_ != null)
+		{
+			ConsoleUtil.println("Reconfiguring Namespace!");
+		}
+		namespace_ = namespace;
+	}
+
+	/**
+	 * A UUID removed from the debug map, in the journal
+	 */
+	private static final class Removed
+	{
+		private final UUID uuid_;
+
+		private Removed(UUID uuid)
+		{
+			uuid_ = uuid;
+		}
+	}
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.va.oia.terminology.converters.sharedUtils.stats;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link HeapPeakSampler}
+ *
+ * Tracks the peak heap use over a conversion, by sampling the total heap use on a background (daemon) thread.  Unlike the peak
+ * use of the heap memory pools, this only covers the time since the sampler was started (not the life of the JVM, which may
+ * have run earlier conversions) - and it is the peak of the total, rather than the sum of the peaks of each pool, which were
+ * usually reached at different times.  A peak between two samples may be missed, so the result can be a little low.
+ *
+ * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
+ */
+public class HeapPeakSampler
+{
+	private final MemoryMXBean memory_ = ManagementFactory.getMemoryMXBean();
+	private final AtomicLong peak_ = new AtomicLong();
+	private final Timer timer_;
+
+	/**
+	 * Start sampling
+	 * @param intervalMillis - the time between samples
+	 */
+	public HeapPeakSampler(long intervalMillis)
+	{
+		sample();
+		timer_ = new Timer("Heap peak sampler", true);
+		timer_.schedule(new TimerTask()
+		{
+			@Override
+			public void run()
+			{
+				sample();
+			}
+		}, intervalMillis, intervalMillis);
+	}
+
+	private void sample()
+	{
+		long used = memory_.getHeapMemoryUsage().getUsed();
+		long peak = peak_.get();
+		while (used > peak && !peak_.compareAndSet(peak, used))
+		{
+			peak = peak_.get();
+		}
+	}
+
+	/**
+	 * @return the peak heap use seen since this sampler was started (including now)
+	 */
+	public long getPeak()
+	{
+		sample();
+		return peak_.get();
+	}
+
+	/**
+	 * Stop sampling
+	 */
+	public void stop()
+	{
+		timer_.cancel();
+	}
+}
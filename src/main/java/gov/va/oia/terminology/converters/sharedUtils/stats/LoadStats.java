@@ -18,116 +18,374 @@
  */
 package gov.va.oia.terminology.converters.sharedUtils.stats;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Map;
 import java.util.TreeMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Keep counts on all of the types of things that are converted.
  * 
+ * The counters are {@link LongAdder}s, so counting never blocks, even with many threads converting at once.  Callers which count 
+ * the same key over and over can look up the counter once (the get*Counter methods), and increment it directly - the map lookup 
+ * is then skipped as well.  The keys are only sorted when the summary is rendered.
+ * 
+ * The counts of a conversion that was split up (across threads, or processes) can be combined - {@link #merge(LoadStats)} adds 
+ * the counts of another instance, and {@link #writeExternal(DataOutput)} / {@link #readExternal(DataInput)} carry them between 
+ * processes.  Merging is associative and order independent, so the combined summary is the same as a single run would produce 
+ * (apart from the timings - see {@link #getSummary(boolean)}).
+ * 
+ * The time spent in each {@link Stage} of the conversion is also kept, and reported at the end of the summary.  The stage times
+ * are inclusive - the time of nested stages (an annotation added by a description, for example) is also part of the outer stage.
+ * 
  * @author Daniel Armbrust
  */
 
 public class LoadStats
 {
-	private AtomicInteger concepts_ = new AtomicInteger();
-	private AtomicInteger clonedConcepts_ = new AtomicInteger();
-	private AtomicInteger skippedPropertiesCounter_ = new AtomicInteger();
-	private AtomicInteger generatedPreferredTermCount_ = new AtomicInteger();
-	private TreeMap<String, Integer> descriptions_ = new TreeMap<String, Integer>();
-	private TreeMap<String, Integer> conceptIds_ = new TreeMap<String, Integer>();
-	private TreeMap<String, TreeMap<String, Integer>> componentIds_ = new TreeMap<String, TreeMap<String, Integer>>();
-	private TreeMap<String, Integer> refsetMembers_ = new TreeMap<String, Integer>();
-	private TreeMap<String, Integer> relationships_ = new TreeMap<String, Integer>();
-	private TreeMap<String, Integer> associations_ = new TreeMap<String, Integer>();
-	private TreeMap<String, TreeMap<String, Integer>> annotations_ = new TreeMap<String, TreeMap<String, Integer>>();
+	private static final int SERIAL_VERSION = 1;
 	
-	private Object syncLock = new Object();
+	/**
+	 * The timed stages of a conversion
+	 */
+	public enum Stage
+	{
+		CONCEPT("Concept"), DESCRIPTION("Description"), RELATIONSHIP("Relationship"), ANNOTATION("Annotation"), REFSET_MEMBER("Refset Member"), 
+		VALIDATE("Validate"), WRITE("Write");
+		
+		private final String niceName_;
+		
+		private Stage(String niceName)
+		{
+			niceName_ = niceName;
+		}
+		
+		public String getNiceName()
+		{
+			return niceName_;
+		}
+	}
+	
+	private LongAdder concepts_ = new LongAdder();
+	private LongAdder clonedConcepts_ = new LongAdder();
+	private LongAdder skippedPropertiesCounter_ = new LongAdder();
+	private LongAdder generatedPreferredTermCount_ = new LongAdder();
+	private ConcurrentHashMap<String, LongAdder> descriptions_ = new ConcurrentHashMap<>();
+	private ConcurrentHashMap<String, LongAdder> conceptIds_ = new ConcurrentHashMap<>();
+	private ConcurrentHashMap<String, ConcurrentHashMap<String, LongAdder>> componentIds_ = new ConcurrentHashMap<>();
+	private ConcurrentHashMap<String, LongAdder> refsetMembers_ = new ConcurrentHashMap<>();
+	private ConcurrentHashMap<String, LongAdder> relationships_ = new ConcurrentHashMap<>();
+	private ConcurrentHashMap<String, LongAdder> associations_ = new ConcurrentHashMap<>();
+	private ConcurrentHashMap<String, ConcurrentHashMap<String, LongAdder>> annotations_ = new ConcurrentHashMap<>();
+	private final LongAdder[] stageCalls_ = newAdders(Stage.values().length);
+	private final LongAdder[] stageNanos_ = newAdders(Stage.values().length);
+	
+	private final ConverterUUIDContext uuidContext_;
+	
+	public LoadStats()
+	{
+		this(ConverterUUID.getDefaultContext());
+	}
+	
+	/**
+	 * @param uuidContext - the UUID context of the conversion being counted - for reporting on its UUID debug map.
+	 */
+	public LoadStats(ConverterUUIDContext uuidContext)
+	{
+		uuidContext_ = uuidContext;
+	}
+
+	public ConverterUUIDContext getUUIDContext()
+	{
+		return uuidContext_;
+	}
 
 	public void addConcept()
 	{
-		concepts_.incrementAndGet();
+		concepts_.increment();
 	}
 
 	public int getConceptCount()
 	{
-		return concepts_.get();
+		return concepts_.intValue();
 	}
 	
 	public void addConceptClone()
 	{
-		clonedConcepts_.incrementAndGet();
+		clonedConcepts_.increment();
 	}
 
 	public int getClonedConceptCount()
 	{
-		return clonedConcepts_.get();
+		return clonedConcepts_.intValue();
 	}
 	
 	public void addSkippedProperty()
 	{
-		skippedPropertiesCounter_.incrementAndGet();
+		skippedPropertiesCounter_.increment();
 	}
 
 	public int getSkippedPropertyCount()
 	{
-		return skippedPropertiesCounter_.get();
+		return skippedPropertiesCounter_.intValue();
 	}
 	
 	public void incDescriptionCopiedFromFSNCount()
 	{
-		generatedPreferredTermCount_.incrementAndGet();
+		generatedPreferredTermCount_.increment();
 	}
 
 	public void addDescription(String descName)
 	{
-		increment(descriptions_, descName);
+		getDescriptionCounter(descName).increment();
+	}
+
+	public LongAdder getDescriptionCounter(String descName)
+	{
+		return counter(descriptions_, descName);
 	}
 
 	public void addConceptId(String idName)
 	{
-		increment(conceptIds_, idName);
+		getConceptIdCounter(idName).increment();
+	}
+
+	public LongAdder getConceptIdCounter(String idName)
+	{
+		return counter(conceptIds_, idName);
 	}
 
 	public void addComponentId(String annotatedItem, String annotationName)
 	{
-		increment(componentIds_, annotatedItem, annotationName);
+		getComponentIdCounter(annotatedItem, annotationName).increment();
+	}
+
+	public LongAdder getComponentIdCounter(String annotatedItem, String annotationName)
+	{
+		return counter(componentIds_, annotatedItem, annotationName);
 	}
 
 	public void addAnnotation(String annotatedItem, String annotationName)
 	{
-		increment(annotations_, annotatedItem, annotationName);
+		getAnnotationCounter(annotatedItem, annotationName).increment();
+	}
+
+	public LongAdder getAnnotationCounter(String annotatedItem, String annotationName)
+	{
+		return counter(annotations_, annotatedItem, annotationName);
 	}
 
 	public void addRefsetMember(String refsetName)
 	{
-		increment(refsetMembers_, refsetName);
+		getRefsetMemberCounter(refsetName).increment();
+	}
+
+	public LongAdder getRefsetMemberCounter(String refsetName)
+	{
+		return counter(refsetMembers_, refsetName);
 	}
 
 	public void addRelationship(String relName)
 	{
-		increment(relationships_, relName);
+		getRelationshipCounter(relName).increment();
+	}
+
+	public LongAdder getRelationshipCounter(String relName)
+	{
+		return counter(relationships_, relName);
 	}
 	
 	public void addAssociation(String assnName)
 	{
-		increment(associations_, assnName);
+		getAssociationCounter(assnName).increment();
+	}
+
+	public LongAdder getAssociationCounter(String assnName)
+	{
+		return counter(associations_, assnName);
+	}
+
+	public long getDescriptionCount()
+	{
+		return total(descriptions_);
+	}
+
+	public long getRelationshipCount()
+	{
+		return total(relationships_);
+	}
+
+	public long getAnnotationCount()
+	{
+		long sum = 0;
+		for (ConcurrentHashMap<String, LongAdder> nested : annotations_.values())
+		{
+			sum += total(nested);
+		}
+		return sum;
+	}
+
+	public long getRefsetMemberCount()
+	{
+		return total(refsetMembers_);
+	}
+
+	/**
+	 * @return every counter, keyed by the same labels that {@link #getSummary()} uses (including the totals), sorted by label.
+	 */
+	public TreeMap<String, Long> getCounters()
+	{
+		TreeMap<String, Long> result = new TreeMap<>();
+		result.put("Concepts", concepts_.sum());
+		result.put("Cloned Concepts", clonedConcepts_.sum());
+		result.put("Skipped Properties", skippedPropertiesCounter_.sum());
+		result.put("Descriptions duplicated from FSN", generatedPreferredTermCount_.sum());
+		putCounters(result, "Relationship", "Relationships", sorted(relationships_));
+		putCounters(result, "Association", "Associations", sorted(associations_));
+		putCounters(result, "Concept ID", "Concept IDs", sorted(conceptIds_));
+		putCounters(result, "Description", "Descriptions", sorted(descriptions_));
+		putCounters(result, "Refset Member", "Refset Members", sorted(refsetMembers_));
+		putCounters2(result, "Component ID", "Component IDs", sorted2(componentIds_));
+		putCounters2(result, "Annotation", "Annotations", sorted2(annotations_));
+		return result;
+	}
+
+	/**
+	 * Record one pass through a stage of the conversion.
+	 * @param stage - the stage
+	 * @param startTime - the System.nanoTime() at the start of the stage
+	 */
+	public void addStageTime(Stage stage, long startTime)
+	{
+		stageNanos_[stage.ordinal()].add(System.nanoTime() - startTime);
+		stageCalls_[stage.ordinal()].increment();
+	}
+
+	public long getStageCalls(Stage stage)
+	{
+		return stageCalls_[stage.ordinal()].sum();
+	}
+
+	public long getStageNanos(Stage stage)
+	{
+		return stageNanos_[stage.ordinal()].sum();
+	}
+
+	/**
+	 * Add all of the counts from another instance to this one.  The other instance is not modified.
+	 */
+	public void merge(LoadStats other)
+	{
+		concepts_.add(other.concepts_.sum());
+		clonedConcepts_.add(other.clonedConcepts_.sum());
+		skippedPropertiesCounter_.add(other.skippedPropertiesCounter_.sum());
+		generatedPreferredTermCount_.add(other.generatedPreferredTermCount_.sum());
+		merge(descriptions_, other.descriptions_);
+		merge(conceptIds_, other.conceptIds_);
+		merge2(componentIds_, other.componentIds_);
+		merge(refsetMembers_, other.refsetMembers_);
+		merge(relationships_, other.relationships_);
+		merge(associations_, other.associations_);
+		merge2(annotations_, other.annotations_);
+		for (int i = 0; i < stageCalls_.length; i++)
+		{
+			stageCalls_[i].add(other.stageCalls_[i].sum());
+			stageNanos_[i].add(other.stageNanos_[i].sum());
+		}
+	}
+	
+	/**
+	 * Write out the counts - for {@link #readExternal(DataInput)} in another process.
+	 */
+	public void writeExternal(DataOutput out) throws IOException
+	{
+		out.writeInt(SERIAL_VERSION);
+		out.writeLong(concepts_.sum());
+		out.writeLong(clonedConcepts_.sum());
+		out.writeLong(skippedPropertiesCounter_.sum());
+		out.writeLong(generatedPreferredTermCount_.sum());
+		write(out, descriptions_);
+		write(out, conceptIds_);
+		write2(out, componentIds_);
+		write(out, refsetMembers_);
+		write(out, relationships_);
+		write(out, associations_);
+		write2(out, annotations_);
+		out.writeInt(stageCalls_.length);
+		for (Stage stage : Stage.values())
+		{
+			out.writeUTF(stage.name());
+			out.writeLong(getStageCalls(stage));
+			out.writeLong(getStageNanos(stage));
+		}
+	}
+	
+	/**
+	 * Read counts written by {@link #writeExternal(DataOutput)} - they are added to the counts already in this instance, so 
+	 * the output of several partial runs can be read, one after the other, into a single instance.
+	 */
+	public void readExternal(DataInput in) throws IOException
+	{
+		int version = in.readInt();
+		if (version != SERIAL_VERSION)
+		{
+			throw new IOException("Unsupported LoadStats format version " + version);
+		}
+		concepts_.add(in.readLong());
+		clonedConcepts_.add(in.readLong());
+		skippedPropertiesCounter_.add(in.readLong());
+		generatedPreferredTermCount_.add(in.readLong());
+		read(in, descriptions_);
+		read(in, conceptIds_);
+		read2(in, componentIds_);
+		read(in, refsetMembers_);
+		read(in, relationships_);
+		read(in, associations_);
+		read2(in, annotations_);
+		int stages = in.readInt();
+		for (int i = 0; i < stages; i++)
+		{
+			String name = in.readUTF();
+			long calls = in.readLong();
+			long nanos = in.readLong();
+			try
+			{
+				Stage stage = Stage.valueOf(name);
+				stageCalls_[stage.ordinal()].add(calls);
+				stageNanos_[stage.ordinal()].add(nanos);
+			}
+			catch (IllegalArgumentException e)
+			{
+				//a stage this build doesn't know about
+			}
+		}
 	}
 
 	public ArrayList<String> getSummary()
+	{
+		return getSummary(true);
+	}
+
+	/**
+	 * @param includeTimings - false to leave out the stage timings - which, unlike the counts, vary from run to run.
+	 */
+	public ArrayList<String> getSummary(boolean includeTimings)
 	{
 		ArrayList<String> result = new ArrayList<String>();
 
-		result.add("Concepts: " + concepts_.get());
+		result.add("Concepts: " + concepts_.sum());
 		
-		if (clonedConcepts_.get() > 0)
+		if (clonedConcepts_.sum() > 0)
 		{
-			result.add("Cloned Concepts: " + clonedConcepts_.get());
+			result.add("Cloned Concepts: " + clonedConcepts_.sum());
 		}
 
-		int sum = 0;
-		for (Map.Entry<String, Integer> value : relationships_.entrySet())
+		long sum = 0;
+		for (Map.Entry<String, Long> value : sorted(relationships_).entrySet())
 		{
 			sum += value.getValue();
 			result.add("Relationship '" + value.getKey() + "': " + value.getValue());
@@ -135,7 +393,7 @@ public class LoadStats
 		result.add("Relationships Total: " + sum);
 		
 		sum = 0;
-		for (Map.Entry<String, Integer> value : associations_.entrySet())
+		for (Map.Entry<String, Long> value : sorted(associations_).entrySet())
 		{
 			sum += value.getValue();
 			result.add("Association '" + value.getKey() + "': " + value.getValue());
@@ -143,7 +401,7 @@ public class LoadStats
 		result.add("Associations Total: " + sum);
 
 		sum = 0;
-		for (Map.Entry<String, Integer> value : conceptIds_.entrySet())
+		for (Map.Entry<String, Long> value : sorted(conceptIds_).entrySet())
 		{
 			sum += value.getValue();
 			result.add("Concept ID '" + value.getKey() + "': " + value.getValue());
@@ -151,11 +409,11 @@ public class LoadStats
 		result.add("Concept IDs Total: " + sum);
 
 		sum = 0;
-		int nestedSum = 0;
-		for (Map.Entry<String, TreeMap<String, Integer>> value : componentIds_.entrySet())
+		long nestedSum = 0;
+		for (Map.Entry<String, TreeMap<String, Long>> value : sorted2(componentIds_).entrySet())
 		{
 			nestedSum = 0;
-			for (Map.Entry<String, Integer> nestedValue : value.getValue().entrySet())
+			for (Map.Entry<String, Long> nestedValue : value.getValue().entrySet())
 			{
 				result.add("Component ID '" + value.getKey() + ":" + nestedValue.getKey() + "': " + nestedValue.getValue());
 				nestedSum += nestedValue.getValue();
@@ -169,23 +427,23 @@ public class LoadStats
 		result.add("Component IDs Total: " + sum);
 
 		sum = 0;
-		for (Map.Entry<String, Integer> value : descriptions_.entrySet())
+		for (Map.Entry<String, Long> value : sorted(descriptions_).entrySet())
 		{
 			sum += value.getValue();
 			result.add("Description '" + value.getKey() + "': " + value.getValue());
 		}
 		result.add("Descriptions Total: " + sum);
-		if (generatedPreferredTermCount_.get() > 0)
+		if (generatedPreferredTermCount_.sum() > 0)
 		{
-			result.add("Descriptions duplicated from FSN: " + generatedPreferredTermCount_.get());
+			result.add("Descriptions duplicated from FSN: " + generatedPreferredTermCount_.sum());
 		}
 
 		sum = 0;
 		nestedSum = 0;
-		for (Map.Entry<String, TreeMap<String, Integer>> value : annotations_.entrySet())
+		for (Map.Entry<String, TreeMap<String, Long>> value : sorted2(annotations_).entrySet())
 		{
 			nestedSum = 0;
-			for (Map.Entry<String, Integer> nestedValue : value.getValue().entrySet())
+			for (Map.Entry<String, Long> nestedValue : value.getValue().entrySet())
 			{
 				result.add("Annotation '" + value.getKey() + ":" + nestedValue.getKey() + "': " + nestedValue.getValue());
 				nestedSum += nestedValue.getValue();
@@ -198,62 +456,212 @@ public class LoadStats
 		}
 		result.add("Annotations Total: " + sum);
 		
-		if (skippedPropertiesCounter_.get() > 0)
+		if (skippedPropertiesCounter_.sum() > 0)
 		{
-			result.add("Skipped Properties: " + skippedPropertiesCounter_.get());
+			result.add("Skipped Properties: " + skippedPropertiesCounter_.sum());
 		}
 
 		sum = 0;
-		for (Map.Entry<String, Integer> value : refsetMembers_.entrySet())
+		for (Map.Entry<String, Long> value : sorted(refsetMembers_).entrySet())
 		{
 			sum += value.getValue();
 			result.add("Refset Members '" + value.getKey() + "': " + value.getValue());
 		}
 		result.add("Refset Members Total: " + sum);
+		
+		PreviousReleaseUUIDIndex previousRelease = uuidContext_.getPreviousRelease();
+		if (previousRelease != null)
+		{
+			result.add(previousRelease.getSummary());
+		}
+		
+		if (includeTimings)
+		{
+			for (Stage stage : Stage.values())
+			{
+				addTiming(result, stage.getNiceName(), getStageCalls(stage), getStageNanos(stage));
+			}
+			if (uuidContext_.isUUIDTimingEnabled())
+			{
+				addTiming(result, "UUID Generation", uuidContext_.getUUIDGenerationCount(), uuidContext_.getUUIDGenerationNanos());
+			}
+		}
 
 		return result;
 	}
 
-	private void increment(TreeMap<String, Integer> dataHolder, String type)
+	private static LongAdder counter(ConcurrentHashMap<String, LongAdder> dataHolder, String type)
 	{
-		synchronized (syncLock)
+		LongAdder counter = dataHolder.get(type);
+		if (counter == null)
 		{
-			Integer i = dataHolder.get(type);
-			if (i == null)
+			LongAdder created = new LongAdder();
+			counter = dataHolder.putIfAbsent(type, created);
+			if (counter == null)
 			{
-				i = new Integer(1);
+				counter = created;
 			}
-			else
+		}
+		return counter;
+	}
+
+	private static LongAdder counter(ConcurrentHashMap<String, ConcurrentHashMap<String, LongAdder>> dataHolder, String annotatedType, String type)
+	{
+		ConcurrentHashMap<String, LongAdder> map = dataHolder.get(annotatedType);
+		if (map == null)
+		{
+			ConcurrentHashMap<String, LongAdder> created = new ConcurrentHashMap<>();
+			map = dataHolder.putIfAbsent(annotatedType, created);
+			if (map == null)
 			{
-				i++;
+				map = created;
 			}
-			dataHolder.put(type, i);
 		}
+		return counter(map, type);
 	}
 
-	private void increment(TreeMap<String, TreeMap<String, Integer>> dataHolder, String annotatedType, String type)
+	private static void putCounters(TreeMap<String, Long> result, String type, String totalType, TreeMap<String, Long> values)
 	{
-		synchronized (syncLock)
+		long sum = 0;
+		for (Map.Entry<String, Long> value : values.entrySet())
 		{
-			TreeMap<String, Integer> map = dataHolder.get(annotatedType);
-	
-			if (map == null)
+			result.put(type + " '" + value.getKey() + "'", value.getValue());
+			sum += value.getValue();
+		}
+		result.put(totalType + " Total", sum);
+	}
+
+	private static void putCounters2(TreeMap<String, Long> result, String type, String totalType, TreeMap<String, TreeMap<String, Long>> values)
+	{
+		long sum = 0;
+		for (Map.Entry<String, TreeMap<String, Long>> value : values.entrySet())
+		{
+			for (Map.Entry<String, Long> nestedValue : value.getValue().entrySet())
 			{
-				map = new TreeMap<String, Integer>();
+				result.put(type + " '" + value.getKey() + ":" + nestedValue.getKey() + "'", nestedValue.getValue());
+				sum += nestedValue.getValue();
 			}
-	
-			Integer i = map.get(type);
-	
-			if (i == null)
+		}
+		result.put(totalType + " Total", sum);
+	}
+
+	private static void addTiming(ArrayList<String> result, String name, long calls, long nanos)
+	{
+		if (calls > 0)
+		{
+			result.add("Time in '" + name + "': " + (nanos / 1000000) + " ms (" + calls + " calls, " + (nanos / calls) + " ns each)");
+		}
+	}
+
+	private static LongAdder[] newAdders(int count)
+	{
+		LongAdder[] result = new LongAdder[count];
+		for (int i = 0; i < count; i++)
+		{
+			result[i] = new LongAdder();
+		}
+		return result;
+	}
+
+	private static long total(ConcurrentHashMap<String, LongAdder> dataHolder)
+	{
+		long sum = 0;
+		for (LongAdder counter : dataHolder.values())
+		{
+			sum += counter.sum();
+		}
+		return sum;
+	}
+
+	private static void merge(ConcurrentHashMap<String, LongAdder> dataHolder, ConcurrentHashMap<String, LongAdder> other)
+	{
+		for (Map.Entry<String, LongAdder> value : other.entrySet())
+		{
+			counter(dataHolder, value.getKey()).add(value.getValue().sum());
+		}
+	}
+
+	private static void merge2(ConcurrentHashMap<String, ConcurrentHashMap<String, LongAdder>> dataHolder, 
+			ConcurrentHashMap<String, ConcurrentHashMap<String, LongAdder>> other)
+	{
+		for (Map.Entry<String, ConcurrentHashMap<String, LongAdder>> value : other.entrySet())
+		{
+			for (Map.Entry<String, LongAdder> nestedValue : value.getValue().entrySet())
 			{
-				i = new Integer(1);
+				counter(dataHolder, value.getKey(), nestedValue.getKey()).add(nestedValue.getValue().sum());
 			}
-			else
+		}
+	}
+
+	private static void write(DataOutput out, ConcurrentHashMap<String, LongAdder> dataHolder) throws IOException
+	{
+		TreeMap<String, Long> values = sorted(dataHolder);  //a stable snapshot, so the count matches the entries
+		out.writeInt(values.size());
+		for (Map.Entry<String, Long> value : values.entrySet())
+		{
+			out.writeUTF(value.getKey());
+			out.writeLong(value.getValue());
+		}
+	}
+
+	private static void write2(DataOutput out, ConcurrentHashMap<String, ConcurrentHashMap<String, LongAdder>> dataHolder) throws IOException
+	{
+		TreeMap<String, TreeMap<String, Long>> values = sorted2(dataHolder);
+		out.writeInt(values.size());
+		for (Map.Entry<String, TreeMap<String, Long>> value : values.entrySet())
+		{
+			out.writeUTF(value.getKey());
+			out.writeInt(value.getValue().size());
+			for (Map.Entry<String, Long> nestedValue : value.getValue().entrySet())
 			{
-				i++;
+				out.writeUTF(nestedValue.getKey());
+				out.writeLong(nestedValue.getValue());
 			}
-			map.put(type, i);
-			dataHolder.put(annotatedType, map);
 		}
 	}
+
+	private static void read(DataInput in, ConcurrentHashMap<String, LongAdder> dataHolder) throws IOException
+	{
+		int size = in.readInt();
+		for (int i = 0; i < size; i++)
+		{
+			String key = in.readUTF();
+			counter(dataHolder, key).add(in.readLong());
+		}
+	}
+
+	private static void read2(DataInput in, ConcurrentHashMap<String, ConcurrentHashMap<String, LongAdder>> dataHolder) throws IOException
+	{
+		int size = in.readInt();
+		for (int i = 0; i < size; i++)
+		{
+			String annotatedType = in.readUTF();
+			int nestedSize = in.readInt();
+			for (int j = 0; j < nestedSize; j++)
+			{
+				String key = in.readUTF();
+				counter(dataHolder, annotatedType, key).add(in.readLong());
+			}
+		}
+	}
+
+	private static TreeMap<String, Long> sorted(ConcurrentHashMap<String, LongAdder> dataHolder)
+	{
+		TreeMap<String, Long> result = new TreeMap<>();
+		for (Map.Entry<String, LongAdder> value : dataHolder.entrySet())
+		{
+			result.put(value.getKey(), value.getValue().sum());
+		}
+		return result;
+	}
+
+	private static TreeMap<String, TreeMap<String, Long>> sorted2(ConcurrentHashMap<String, ConcurrentHashMap<String, LongAdder>> dataHolder)
+	{
+		TreeMap<String, TreeMap<String, Long>> result = new TreeMap<>();
+		for (Map.Entry<String, ConcurrentHashMap<String, LongAdder>> value : dataHolder.entrySet())
+		{
+			result.put(value.getKey(), sorted(value.getValue()));
+		}
+		return result;
+	}
 }
@@ -0,0 +1,542 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.va.oia.terminology.converters.sharedUtils.stats;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+/**
+ * {@link MappedUUIDMap}
+ *
+ * A disk backed implementation of the {@link UUIDDebugMap}, for terminologies where even the {@link PrimitiveUUIDMap} won't
+ * fit in the heap.  The creation strings are appended to a memory mapped, append-only record file, and the UUIDs are kept
+ * in a memory mapped, open addressing hash index file which points into the record file.  Heap use is constant, regardless
+ * of the number of entries - the OS page cache does the rest.
+ *
+ * Record file format - [msb][lsb][int byteCount][UTF-8 bytes]
+ * Index file format - capacity slots of [msb][lsb][long recordOffset + 1] - with 0 meaning free.
+ *
+ * When the index fills up, it is rebuilt at double the size into a second index file, and the two swap roles - the old one is 
+ * truncated, releasing its disk space (even though its mappings are only released at GC), and is reused for the next rebuild.
+ * So a long load only ever creates three files, and disk use stays at the size of the current index and records - on platforms 
+ * that can't truncate a mapped file (windows), the old index is zeroed for reuse instead.
+ * 
+ * The files are created in the specified directory, and are deleted on {@link #close()} (or JVM exit).
+ *
+ * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
+ */
+public class MappedUUIDMap implements UUIDDebugMap
+{
+	private static final long FREE = 0;
+	private static final long REMOVED = -1;
+	private static final long NO_VALUE = Long.MAX_VALUE;
+	private static final int SLOT_SIZE = 24;
+	private static final long MIN_CAPACITY = 1 << 16;
+	private static final float LOAD_FACTOR = 0.7f;
+
+	private final File directory_;
+	private MappedFile records_;
+	private MappedFile index_;
+	private MappedFile spareIndex_;  //the previous index, truncated - null until the first rebuild
+	private long recordEnd_;
+	private long capacity_;
+	private long size_;
+	private long occupied_;
+
+	/**
+	 * @param directory - where to create the backing files.
+	 */
+	public MappedUUIDMap(File directory) throws IOException
+	{
+		directory_ = directory;
+		records_ = new MappedFile(directory_, ".uuidRecords");
+		index_ = new MappedFile(directory_, ".uuidIndex");
+		capacity_ = MIN_CAPACITY;
+	}
+
+	@Override
+	public synchronized String put(UUID uuid, String value)
+	{
+		if (value == null)
+		{
+			throw new NullPointerException();
+		}
+		long msb = uuid.getMostSignificantBits();
+		long lsb = uuid.getLeastSignificantBits();
+		long slot = find(msb, lsb);
+		if (slot >= 0)
+		{
+			String old = value(slot);
+			if (!value.equals(old))
+			{
+				index_.putLong(slot * SLOT_SIZE + 16, appendRecord(msb, lsb, value) + 1);
+			}
+			return old;
+		}
+		ensureCapacity();
+		if (insert(index_, capacity_, msb, lsb, appendRecord(msb, lsb, value) + 1))
+		{
+			occupied_++;
+		}
+		size_++;
+		return null;
+	}
+
+	@Override
+	public boolean add(UUID uuid)
+	{
+		return add(uuid, null);
+	}
+
+	@Override
+	public synchronized boolean add(UUID uuid, String value)
+	{
+		long msb = uuid.getMostSignificantBits();
+		long lsb = uuid.getLeastSignificantBits();
+		if (find(msb, lsb) >= 0)
+		{
+			return false;
+		}
+		ensureCapacity();
+		if (insert(index_, capacity_, msb, lsb, value == null ? NO_VALUE : appendRecord(msb, lsb, value) + 1))
+		{
+			occupied_++;
+		}
+		size_++;
+		return true;
+	}
+
+	@Override
+	public synchronized String get(UUID uuid)
+	{
+		long slot = find(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+		return slot >= 0 ? value(slot) : null;
+	}
+
+	@Override
+	public synchronized boolean containsKey(UUID uuid)
+	{
+		return find(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()) >= 0;
+	}
+
+	/**
+	 * Note that the record is not removed from the record file - only from the index.
+	 */
+	@Override
+	public synchronized String remove(UUID uuid)
+	{
+		long slot = find(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+		if (slot < 0)
+		{
+			return null;
+		}
+		String old = value(slot);
+		index_.putLong(slot * SLOT_SIZE + 16, REMOVED);
+		size_--;
+		return old;
+	}
+
+	@Override
+	public synchronized int size()
+	{
+		return (int) Math.min(size_, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public synchronized void clear()
+	{
+		try
+		{
+			records_.delete();
+			index_.delete();
+			if (spareIndex_ != null)
+			{
+				spareIndex_.delete();
+				spareIndex_ = null;
+			}
+			records_ = new MappedFile(directory_, ".uuidRecords");
+			index_ = new MappedFile(directory_, ".uuidIndex");
+		}
+		catch (IOException e)
+		{
+			throw new RuntimeException("Unable to recreate the UUID map files", e);
+		}
+		recordEnd_ = 0;
+		capacity_ = MIN_CAPACITY;
+		size_ = 0;
+		occupied_ = 0;
+	}
+
+	@Override
+	public synchronized void close()
+	{
+		records_.delete();
+		index_.delete();
+		if (spareIndex_ != null)
+		{
+			spareIndex_.delete();
+		}
+	}
+
+	/**
+	 * Iterates in index order.
+	 */
+	@Override
+	public Iterator<Map.Entry<UUID, String>> iterator()
+	{
+		return new Iterator<Map.Entry<UUID, String>>()
+		{
+			long next_ = advance(0);
+
+			private long advance(long from)
+			{
+				while (from < capacity_)
+				{
+					long offset = index_.getLong(from * SLOT_SIZE + 16);
+					if (offset != FREE && offset != REMOVED)
+					{
+						break;
+					}
+					from++;
+				}
+				return from;
+			}
+
+			@Override
+			public boolean hasNext()
+			{
+				return next_ < capacity_;
+			}
+
+			@Override
+			public Map.Entry<UUID, String> next()
+			{
+				if (!hasNext())
+				{
+					throw new NoSuchElementException();
+				}
+				long slot = next_;
+				next_ = advance(slot + 1);
+				return new AbstractMap.SimpleImmutableEntry<UUID, String>(new UUID(index_.getLong(slot * SLOT_SIZE), index_.getLong(slot * SLOT_SIZE + 8)),
+						value(slot));
+			}
+		};
+	}
+
+	/**
+	 * The number of bytes currently used on disk by the record and index files
+	 */
+	public synchronized long getDiskUse()
+	{
+		return recordEnd_ + capacity_ * SLOT_SIZE;
+	}
+
+	private long appendRecord(long msb, long lsb, String value)
+	{
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		long start = recordEnd_;
+		records_.putLong(start, msb);
+		records_.putLong(start + 8, lsb);
+		records_.putInt(start + 16, bytes.length);
+		records_.put(start + 20, bytes);
+		recordEnd_ = start + 20 + bytes.length;
+		return start;
+	}
+
+	private String value(long slot)
+	{
+		long offset = index_.getLong(slot * SLOT_SIZE + 16);
+		if (offset == NO_VALUE)
+		{
+			return null;
+		}
+		long recordStart = offset - 1;
+		byte[] bytes = new byte[records_.getInt(recordStart + 16)];
+		records_.get(recordStart + 20, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private long find(long msb, long lsb)
+	{
+		long mask = capacity_ - 1;
+		long slot = PrimitiveUUIDMap.hash(msb, lsb) & mask;
+		while (true)
+		{
+			long pos = slot * SLOT_SIZE;
+			long offset = index_.getLong(pos + 16);
+			if (offset == FREE)
+			{
+				return -1;
+			}
+			if (offset != REMOVED && index_.getLong(pos) == msb && index_.getLong(pos + 8) == lsb)
+			{
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+	}
+
+	/**
+	 * Insert a key known not to be present.
+	 * @return true if a free slot was consumed (rather than a removed slot)
+	 */
+	private boolean insert(MappedFile index, long capacity, long msb, long lsb, long recordValue)
+	{
+		long mask = capacity - 1;
+		long slot = PrimitiveUUIDMap.hash(msb, lsb) & mask;
+		long offset;
+		while (true)
+		{
+			offset = index.getLong(slot * SLOT_SIZE + 16);
+			if (offset == FREE || offset == REMOVED)
+			{
+				break;
+			}
+			slot = (slot + 1) & mask;
+		}
+		long pos = slot * SLOT_SIZE;
+		index.putLong(pos, msb);
+		index.putLong(pos + 8, lsb);
+		index.putLong(pos + 16, recordValue);
+		return offset == FREE;
+	}
+
+	private void ensureCapacity()
+	{
+		if (occupied_ < (long) (capacity_ * LOAD_FACTOR))
+		{
+			return;
+		}
+		//If most of the occupied slots are removal markers, just clean up, otherwise, grow.
+		long newCapacity = (size_ >= (long) (capacity_ * LOAD_FACTOR) / 2 ? capacity_ * 2 : capacity_);
+		try
+		{
+			MappedFile newIndex = (spareIndex_ == null ? new MappedFile(directory_, ".uuidIndex") : spareIndex_);
+			long newOccupied = 0;
+			for (long slot = 0; slot < capacity_; slot++)
+			{
+				long pos = slot * SLOT_SIZE;
+				long offset = index_.getLong(pos + 16);
+				if (offset != FREE && offset != REMOVED)
+				{
+					insert(newIndex, newCapacity, index_.getLong(pos), index_.getLong(pos + 8), offset);
+					newOccupied++;
+				}
+			}
+			index_.reset();
+			spareIndex_ = index_;
+			index_ = newIndex;
+			capacity_ = newCapacity;
+			occupied_ = newOccupied;
+		}
+		catch (IOException e)
+		{
+			throw new RuntimeException("Unable to grow the UUID index file", e);
+		}
+	}
+
+	/**
+	 * A file accessed through a series of fixed size memory mapped segments, which are mapped (growing the file) on demand.
+	 * Values which cross a segment boundary are read and written a byte at a time.
+	 */
+	private static class MappedFile
+	{
+		private static final int SEGMENT_BITS = 26;  //64 MB
+		private static final long SEGMENT_SIZE = 1L << SEGMENT_BITS;
+		private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+		private final File file_;
+		private final RandomAccessFile raf_;
+		private final FileChannel channel_;
+		private final ArrayList<MappedByteBuffer> segments_ = new ArrayList<>();
+
+		MappedFile(File directory, String suffix) throws IOException
+		{
+			file_ = File.createTempFile("ConverterUUID", suffix, directory);
+			file_.deleteOnExit();
+			raf_ = new RandomAccessFile(file_, "rw");
+			channel_ = raf_.getChannel();
+		}
+
+		private MappedByteBuffer segment(long pos)
+		{
+			int segment = (int) (pos >>> SEGMENT_BITS);
+			while (segments_.size() <= segment)
+			{
+				try
+				{
+					segments_.add(channel_.map(FileChannel.MapMode.READ_WRITE, segments_.size() * SEGMENT_SIZE, SEGMENT_SIZE));
+				}
+				catch (IOException e)
+				{
+					throw new RuntimeException("Unable to map " + file_, e);
+				}
+			}
+			return segments_.get(segment);
+		}
+
+		long getLong(long pos)
+		{
+			if ((pos & SEGMENT_MASK) <= SEGMENT_SIZE - 8)
+			{
+				return segment(pos).getLong((int) (pos & SEGMENT_MASK));
+			}
+			long result = 0;
+			for (int i = 0; i < 8; i++)
+			{
+				result = (result << 8) | (getByte(pos + i) & 0xff);
+			}
+			return result;
+		}
+
+		void putLong(long pos, long value)
+		{
+			if ((pos & SEGMENT_MASK) <= SEGMENT_SIZE - 8)
+			{
+				segment(pos).putLong((int) (pos & SEGMENT_MASK), value);
+				return;
+			}
+			for (int i = 7; i >= 0; i--)
+			{
+				putByte(pos + (7 - i), (byte) (value >>> (i * 8)));
+			}
+		}
+
+		int getInt(long pos)
+		{
+			if ((pos & SEGMENT_MASK) <= SEGMENT_SIZE - 4)
+			{
+				return segment(pos).getInt((int) (pos & SEGMENT_MASK));
+			}
+			int result = 0;
+			for (int i = 0; i < 4; i++)
+			{
+				result = (result << 8) | (getByte(pos + i) & 0xff);
+			}
+			return result;
+		}
+
+		void putInt(long pos, int value)
+		{
+			if ((pos & SEGMENT_MASK) <= SEGMENT_SIZE - 4)
+			{
+				segment(pos).putInt((int) (pos & SEGMENT_MASK), value);
+				return;
+			}
+			for (int i = 3; i >= 0; i--)
+			{
+				putByte(pos + (3 - i), (byte) (value >>> (i * 8)));
+			}
+		}
+
+		void get(long pos, byte[] dest)
+		{
+			int done = 0;
+			while (done < dest.length)
+			{
+				MappedByteBuffer segment = segment(pos + done);
+				int segmentPos = (int) ((pos + done) & SEGMENT_MASK);
+				int count = (int) Math.min(dest.length - done, SEGMENT_SIZE - segmentPos);
+				ByteBuffer view = segment.duplicate();
+				view.position(segmentPos);
+				view.get(dest, done, count);
+				done += count;
+			}
+		}
+
+		void put(long pos, byte[] source)
+		{
+			int done = 0;
+			while (done < source.length)
+			{
+				MappedByteBuffer segment = segment(pos + done);
+				int segmentPos = (int) ((pos + done) & SEGMENT_MASK);
+				int count = (int) Math.min(source.length - done, SEGMENT_SIZE - segmentPos);
+				ByteBuffer view = segment.duplicate();
+				view.position(segmentPos);
+				view.put(source, done, count);
+				done += count;
+			}
+		}
+
+		private byte getByte(long pos)
+		{
+			return segment(pos).get((int) (pos & SEGMENT_MASK));
+		}
+
+		private void putByte(long pos, byte value)
+		{
+			segment(pos).put((int) (pos & SEGMENT_MASK), value);
+		}
+
+		/**
+		 * Discard the content, so the file can be reused as if new.  The file is truncated - which releases the disk space, while the
+		 * old segments stay mapped until GC.  If the platform won't truncate a mapped file, the old content is zeroed instead.
+		 */
+		void reset() throws IOException
+		{
+			segments_.clear();
+			try
+			{
+				channel_.truncate(0);
+			}
+			catch (IOException e)
+			{
+				ByteBuffer zeros = ByteBuffer.allocate(1 << 16);
+				long end = channel_.size();
+				for (long pos = 0; pos < end; pos += zeros.capacity())
+				{
+					zeros.clear();
+					zeros.limit((int) Math.min(zeros.capacity(), end - pos));
+					while (zeros.hasRemaining())
+					{
+						channel_.write(zeros, pos + zeros.position());
+					}
+				}
+			}
+		}
+
+		void delete()
+		{
+			segments_.clear();
+			try
+			{
+				channel_.close();
+				raf_.close();
+			}
+			catch (IOException e)
+			{
+				//noop
+			}
+			//May fail on platforms that don't allow deleting mapped files - deleteOnExit will catch it then.
+			file_.delete();
+		}
+	}
+}
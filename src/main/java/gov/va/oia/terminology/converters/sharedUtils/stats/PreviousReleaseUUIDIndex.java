@@ -0,0 +1,375 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.va.oia.terminology.converters.sharedUtils.stats;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * {@link PreviousReleaseUUIDIndex}
+ *
+ * A read only index of the UUID debug map file written by the previous release of a conversion (see
+ * {@link ConverterUUIDContext#dump(File, String)} - either the plain or the sorted, gzipped form).  The file is converted
+ * once into a UUID sorted binary index, which is memory mapped and binary searched - so the heap cost is only a single bit
+ * per previous UUID, which tracks which of them have been generated again by this run.
+ *
+ * As UUIDs are generated, they are counted as unchanged (present in the previous release) or new.  Previous UUIDs which are
+ * never generated again are retired - these can be written out, with their creation strings, via {@link #writeRetired(Writer)}.
+ *
+ * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
+ */
+public class PreviousReleaseUUIDIndex
+{
+	private static final int RECORD_SIZE = 24;  //msb, lsb, creation string offset
+	private static final long RECORDS_PER_SEGMENT = Integer.MAX_VALUE / RECORD_SIZE;
+
+	private final File indexFile_;
+	private final File stringFile_;
+	private final MappedByteBuffer[] segments_;
+	private final FileChannel strings_;
+	private final long size_;
+
+	private final AtomicLongArray seen_;
+	private final AtomicLong unchanged_ = new AtomicLong();
+	private final AtomicLong new_ = new AtomicLong();
+
+	/**
+	 * Build the index from the debug map file of the previous release.
+	 * @param previousDebugMap - a DebugMap.txt or DebugMap.txt.gz file
+	 * @param workDirectory - where to put the index files (which are deleted on {@link #close()}, or at exit)
+	 */
+	public PreviousReleaseUUIDIndex(File previousDebugMap, File workDirectory) throws IOException
+	{
+		indexFile_ = File.createTempFile("PreviousReleaseUUIDs", ".idx", workDirectory);
+		indexFile_.deleteOnExit();
+		stringFile_ = File.createTempFile("PreviousReleaseUUIDs", ".str", workDirectory);
+		stringFile_.deleteOnExit();
+
+		final long[] count = new long[1];
+		boolean gzip = previousDebugMap.getName().toLowerCase().endsWith(".gz");
+		InputStream is = new FileInputStream(previousDebugMap);
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(gzip ? new GZIPInputStream(is, 1 << 16) : is,
+				gzip ? StandardCharsets.UTF_8 : Charset.defaultCharset()), 1 << 16);
+				final DataOutputStream index = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile_), 1 << 16));
+				final DataOutputStream strings = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(stringFile_), 1 << 16)))
+		{
+			new SortedDebugMapWriter(SortedDebugMapWriter.SortBy.UUID, workDirectory).write(new DebugMapReader(reader),
+					new SortedDebugMapWriter.EntryHandler()
+			{
+				UUID previous_ = null;
+
+				@Override
+				public void handle(UUID uuid, String value) throws IOException
+				{
+					if (uuid.equals(previous_))
+					{
+						return;
+					}
+					previous_ = uuid;
+					index.writeLong(uuid.getMostSignificantBits());
+					index.writeLong(uuid.getLeastSignificantBits());
+					index.writeLong(strings.size());
+					byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+					strings.writeInt(bytes.length);
+					strings.write(bytes);
+					count[0]++;
+				}
+			});
+		}
+		catch (UncheckedIOException e)
+		{
+			throw e.getCause();
+		}
+		size_ = count[0];
+
+		try (RandomAccessFile raf = new RandomAccessFile(indexFile_, "r"))
+		{
+			FileChannel fc = raf.getChannel();
+			segments_ = new MappedByteBuffer[(int) ((size_ + RECORDS_PER_SEGMENT - 1) / RECORDS_PER_SEGMENT)];
+			for (int i = 0; i < segments_.length; i++)
+			{
+				long start = i * RECORDS_PER_SEGMENT;
+				segments_[i] = fc.map(FileChannel.MapMode.READ_ONLY, start * RECORD_SIZE, Math.min(RECORDS_PER_SEGMENT, size_ - start) * RECORD_SIZE);
+			}
+		}
+		strings_ = new RandomAccessFile(stringFile_, "r").getChannel();
+		seen_ = new AtomicLongArray((int) ((size_ + 63) >>> 6));
+	}
+
+	/**
+	 * @return the number of UUIDs in the previous release
+	 */
+	public long size()
+	{
+		return size_;
+	}
+
+	public boolean contains(UUID uuid)
+	{
+		return find(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()) >= 0;
+	}
+
+	/**
+	 * @return true if the UUID existed in the previous release, and has already been generated again by this run.
+	 */
+	public boolean isUnchanged(UUID uuid)
+	{
+		long record = find(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+		return record >= 0 && (seen_.get((int) (record >>> 6)) & (1L << record)) != 0;
+	}
+
+	/**
+	 * @return the creation string recorded for the UUID in the previous release, or null, if the UUID wasn't present.
+	 */
+	public String getCreationString(UUID uuid) throws IOException
+	{
+		long record = find(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+		return record < 0 ? null : readString(record);
+	}
+
+	/**
+	 * Count a UUID generated by this run - as unchanged, if it was in the previous release, or new, if not.
+	 * Each UUID should only be recorded once.
+	 * @return true, if the UUID was in the previous release.
+	 */
+	public boolean recordGenerated(UUID uuid)
+	{
+		long record = find(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+		if (record < 0)
+		{
+			new_.incrementAndGet();
+			return false;
+		}
+		int word = (int) (record >>> 6);
+		long mask = 1L << record;
+		while (true)
+		{
+			long current = seen_.get(word);
+			if ((current & mask) != 0)
+			{
+				return true;
+			}
+			if (seen_.compareAndSet(word, current, current | mask))
+			{
+				unchanged_.incrementAndGet();
+				return true;
+			}
+		}
+	}
+
+	public long getUnchangedCount()
+	{
+		return unchanged_.get();
+	}
+
+	public long getNewCount()
+	{
+		return new_.get();
+	}
+
+	/**
+	 * @return the number of previous release UUIDs that have not been generated by this run (yet).
+	 */
+	public long getRetiredCount()
+	{
+		return size_ - unchanged_.get();
+	}
+
+	public String getSummary()
+	{
+		return "Previous release UUIDs: " + size_ + ", unchanged " + getUnchangedCount() + ", new " + getNewCount() + ", retired " + getRetiredCount();
+	}
+
+	/**
+	 * Write the previous release UUIDs which have not been generated by this run, in the same 'uuid - creation string' format as
+	 * the debug map file, sorted by UUID.  The writer is not closed.
+	 */
+	public void writeRetired(Writer out) throws IOException
+	{
+		String eol = System.getProperty("line.separator");
+		for (long i = 0; i < size_; i++)
+		{
+			if ((seen_.get((int) (i >>> 6)) & (1L << i)) == 0)
+			{
+				ByteBuffer segment = segments_[(int) (i / RECORDS_PER_SEGMENT)];
+				int pos = (int) (i % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+				out.write(new UUID(segment.getLong(pos), segment.getLong(pos + 8)).toString());
+				out.write(" - ");
+				out.write(readString(i));
+				out.write(eol);
+			}
+		}
+	}
+
+	/**
+	 * Release the index files.
+	 */
+	public void close()
+	{
+		try
+		{
+			strings_.close();
+		}
+		catch (IOException e)
+		{
+			//noop
+		}
+		//May fail on platforms that don't allow deleting mapped files - deleteOnExit will catch it then.
+		indexFile_.delete();
+		stringFile_.delete();
+	}
+
+	/**
+	 * @return the record number, or -1
+	 */
+	private long find(long msb, long lsb)
+	{
+		long low = 0;
+		long high = size_ - 1;
+		while (low <= high)
+		{
+			long mid = (low + high) >>> 1;
+			ByteBuffer segment = segments_[(int) (mid / RECORDS_PER_SEGMENT)];
+			int pos = (int) (mid % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+			int result = Long.compareUnsigned(segment.getLong(pos), msb);
+			if (result == 0)
+			{
+				result = Long.compareUnsigned(segment.getLong(pos + 8), lsb);
+			}
+			if (result < 0)
+			{
+				low = mid + 1;
+			}
+			else if (result > 0)
+			{
+				high = mid - 1;
+			}
+			else
+			{
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+	private String readString(long record) throws IOException
+	{
+		ByteBuffer segment = segments_[(int) (record / RECORDS_PER_SEGMENT)];
+		long offset = segment.getLong((int) (record % RECORDS_PER_SEGMENT) * RECORD_SIZE + 16);
+		ByteBuffer length = ByteBuffer.allocate(4);
+		readFully(length, offset);
+		ByteBuffer bytes = ByteBuffer.allocate(length.getInt(0));
+		readFully(bytes, offset + 4);
+		return new String(bytes.array(), StandardCharsets.UTF_8);
+	}
+
+	private void readFully(ByteBuffer buffer, long position) throws IOException
+	{
+		while (buffer.hasRemaining())
+		{
+			if (strings_.read(buffer, position + buffer.position()) < 0)
+			{
+				throw new IOException("Unexpected end of " + stringFile_);
+			}
+		}
+	}
+
+	/**
+	 * Parses the 'uuid - creation string' lines of a debug map file - skipping any note lines.
+	 */
+	private static class DebugMapReader implements Iterator<Map.Entry<UUID, String>>
+	{
+		private final BufferedReader reader_;
+		private Map.Entry<UUID, String> next_;
+
+		private DebugMapReader(BufferedReader reader)
+		{
+			reader_ = reader;
+			next_ = read();
+		}
+
+		private Map.Entry<UUID, String> read()
+		{
+			try
+			{
+				String line;
+				while ((line = reader_.readLine()) != null)
+				{
+					if (line.length() >= 39 && line.startsWith(" - ", 36))
+					{
+						try
+						{
+							return new AbstractMap.SimpleImmutableEntry<UUID, String>(UUID.fromString(line.substring(0, 36)), line.substring(39));
+						}
+						catch (IllegalArgumentException e)
+						{
+							//not an entry line
+						}
+					}
+				}
+				return null;
+			}
+			catch (IOException e)
+			{
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			return next_ != null;
+		}
+
+		@Override
+		public Map.Entry<UUID, String> next()
+		{
+			if (next_ == null)
+			{
+				throw new NoSuchElementException();
+			}
+			Map.Entry<UUID, String> result = next_;
+			next_ = read();
+			return result;
+		}
+	}
+}
@@ -0,0 +1,331 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.va.oia.terminology.converters.sharedUtils.stats;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+/**
+ * {@link PrimitiveUUIDMap}
+ *
+ * A UUID to String map, tuned for holding tens of millions of entries.  The UUIDs are stored as their two raw long halves
+ * in a flat open addressing (linear probing) table, and the strings are packed into a {@link StringArena} - so there is
+ * no per-entry object overhead at all.
+ *
+ * Entries may also be added without a value (see {@link #add(UUID)}) - which allows this class to serve as a compact
+ * UUID set, when the strings aren't needed.
+ * 
+ * All public methods are synchronized, matching the Hashtable this replaced.
+ *
+ * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
+ */
+public class PrimitiveUUIDMap implements UUIDDebugMap
+{
+	private static final long FREE = -1;
+	private static final long REMOVED = -2;
+	private static final long NO_VALUE = Long.MAX_VALUE;  //never a valid arena handle
+	private static final int MIN_CAPACITY = 1 << 10;
+	private static final float LOAD_FACTOR = 0.7f;
+
+	private long[] keys_;  //msb, lsb pairs
+	private long[] values_;  //arena handles, NO_VALUE, or FREE / REMOVED
+	private int mask_;
+	private int size_;
+	private int occupied_;  //size + removed markers
+	private int threshold_;
+	private StringArena arena_ = new StringArena();
+
+	public PrimitiveUUIDMap()
+	{
+		this(MIN_CAPACITY);
+	}
+
+	/**
+	 * @param expectedSize - the number of entries to size the table for, up front.
+	 */
+	public PrimitiveUUIDMap(int expectedSize)
+	{
+		allocate(capacityFor(expectedSize));
+	}
+
+	/**
+	 * Store the mapping, replacing any existing value.
+	 * @return the value previously stored for this UUID, or null, if none.
+	 */
+	@Override
+	public synchronized String put(UUID uuid, String value)
+	{
+		if (value == null)
+		{
+			throw new NullPointerException();
+		}
+		long msb = uuid.getMostSignificantBits();
+		long lsb = uuid.getLeastSignificantBits();
+		int slot = find(msb, lsb);
+		if (slot >= 0)
+		{
+			String old = value(slot);
+			if (!value.equals(old))
+			{
+				values_[slot] = arena_.append(value);  //the space of the old value is not reclaimed
+			}
+			return old;
+		}
+		ensureCapacity();
+		insert(msb, lsb, arena_.append(value));
+		return null;
+	}
+
+	/**
+	 * Store the UUID, without any value.  If the UUID is already present, any existing value is left as is.
+	 * @return true if the UUID was added, false if it was already present.
+	 */
+	@Override
+	public boolean add(UUID uuid)
+	{
+		return add(uuid, null);
+	}
+
+	/**
+	 * Store the mapping, if the UUID is not already present - the value is only appended to the arena if it is stored.
+	 * @return true if the UUID was added, false if it was already present.
+	 */
+	@Override
+	public synchronized boolean add(UUID uuid, String value)
+	{
+		long msb = uuid.getMostSignificantBits();
+		long lsb = uuid.getLeastSignificantBits();
+		if (find(msb, lsb) >= 0)
+		{
+			return false;
+		}
+		ensureCapacity();
+		insert(msb, lsb, value == null ? NO_VALUE : arena_.append(value));
+		return true;
+	}
+
+	/**
+	 * @return the value stored for this UUID, or null, if none.
+	 */
+	@Override
+	public synchronized String get(UUID uuid)
+	{
+		int slot = find(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+		return slot >= 0 ? value(slot) : null;
+	}
+
+	@Override
+	public synchronized boolean containsKey(UUID uuid)
+	{
+		return find(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()) >= 0;
+	}
+
+	/**
+	 * Remove the mapping.  Note that the space used by the string is not reclaimed.
+	 * @return the value previously stored for this UUID, or null, if none.
+	 */
+	@Override
+	public synchronized String remove(UUID uuid)
+	{
+		int slot = find(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+		if (slot < 0)
+		{
+			return null;
+		}
+		String old = value(slot);
+		values_[slot] = REMOVED;
+		size_--;
+		return old;
+	}
+
+	@Override
+	public synchronized int size()
+	{
+		return size_;
+	}
+
+	@Override
+	public synchronized void clear()
+	{
+		allocate(MIN_CAPACITY);
+		arena_.clear();
+	}
+
+	@Override
+	public void close()
+	{
+		clear();
+	}
+
+	/**
+	 * An approximation of the heap used by this map, in bytes.
+	 */
+	public synchronized long getMemoryUse()
+	{
+		return ((long) keys_.length + values_.length) * 8 + arena_.getBytesUsed();
+	}
+
+	/**
+	 * Iterate the entries, in table order.  Like the iterators of the Hashtable this replaced, this is not synchronized,
+	 * and the results are undefined if the map is modified during iteration.
+	 */
+	@Override
+	public Iterator<Map.Entry<UUID, String>> iterator()
+	{
+		return new Iterator<Map.Entry<UUID, String>>()
+		{
+			int next_ = advance(0);
+
+			private int advance(int from)
+			{
+				while (from < values_.length && values_[from] < 0)
+				{
+					from++;
+				}
+				return from;
+			}
+
+			@Override
+			public boolean hasNext()
+			{
+				return next_ < values_.length;
+			}
+
+			@Override
+			public Map.Entry<UUID, String> next()
+			{
+				if (!hasNext())
+				{
+					throw new NoSuchElementException();
+				}
+				int slot = next_;
+				next_ = advance(slot + 1);
+				return new AbstractMap.SimpleImmutableEntry<UUID, String>(new UUID(keys_[slot * 2], keys_[slot * 2 + 1]), value(slot));
+			}
+		};
+	}
+
+	private String value(int slot)
+	{
+		long handle = values_[slot];
+		return handle == NO_VALUE ? null : arena_.get(handle);
+	}
+
+	private void ensureCapacity()
+	{
+		if (occupied_ >= threshold_)
+		{
+			//If most of the occupied slots are removal markers, just clean up, otherwise, grow.
+			rehash(size_ >= threshold_ / 2 ? values_.length * 2 : values_.length);
+		}
+	}
+
+	/**
+	 * @return the slot holding this key, or -1
+	 */
+	private int find(long msb, long lsb)
+	{
+		int slot = hash(msb, lsb) & mask_;
+		while (true)
+		{
+			long v = values_[slot];
+			if (v == FREE)
+			{
+				return -1;
+			}
+			if (v != REMOVED && keys_[slot * 2] == msb && keys_[slot * 2 + 1] == lsb)
+			{
+				return slot;
+			}
+			slot = (slot + 1) & mask_;
+		}
+	}
+
+	/**
+	 * Insert a key known not to be present
+	 */
+	private void insert(long msb, long lsb, long handle)
+	{
+		int slot = hash(msb, lsb) & mask_;
+		while (values_[slot] >= 0)
+		{
+			slot = (slot + 1) & mask_;
+		}
+		if (values_[slot] == FREE)
+		{
+			occupied_++;
+		}
+		keys_[slot * 2] = msb;
+		keys_[slot * 2 + 1] = lsb;
+		values_[slot] = handle;
+		size_++;
+	}
+
+	private void rehash(int newCapacity)
+	{
+		long[] oldKeys = keys_;
+		long[] oldValues = values_;
+		allocate(newCapacity);
+		for (int i = 0; i < oldValues.length; i++)
+		{
+			if (oldValues[i] >= 0)
+			{
+				insert(oldKeys[i * 2], oldKeys[i * 2 + 1], oldValues[i]);
+			}
+		}
+	}
+
+	private void allocate(int capacity)
+	{
+		keys_ = new long[capacity * 2];
+		values_ = new long[capacity];
+		Arrays.fill(values_, FREE);
+		mask_ = capacity - 1;
+		size_ = 0;
+		occupied_ = 0;
+		threshold_ = (int) (capacity * LOAD_FACTOR);
+	}
+
+	private static int capacityFor(int expectedSize)
+	{
+		long required = (long) Math.ceil(Math.max(expectedSize, 1) / (double) LOAD_FACTOR);
+		int capacity = MIN_CAPACITY;
+		while (capacity < required && capacity < (1 << 30))
+		{
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+
+	/**
+	 * The type 5 UUIDs are mostly random bits already - but mix anyway, to cope with sequential or hand made UUIDs.
+	 */
+	static int hash(long msb, long lsb)
+	{
+		long h = msb ^ (lsb * 0x9E3779B97F4A7C15L);
+		h ^= (h >>> 33);
+		h *= 0xff51afd7ed558ccdL;
+		h ^= (h >>> 33);
+		return (int) h;
+	}
+}
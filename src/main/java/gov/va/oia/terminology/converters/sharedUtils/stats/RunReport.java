@@ -0,0 +1,354 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.va.oia.terminology.converters.sharedUtils.stats;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RunReport}
+ *
+ * A machine readable report of a conversion run - every {@link LoadStats} counter, the time spent in each stage, the elapsed
+ * time, the throughput, the peak heap and the output size - as a flat, sorted set of named metrics.  It can be written as JSON
+ * or CSV, read back in from either, and compared against the report of an earlier (baseline) run with {@link #compareTo(RunReport, double)}.
+ *
+ * Metric names are prefixed by kind - "count." for the load stats counters (named as in the load stats summary), "stage." for the
+ * stage timings, and "run." for the run level values.
+ *
+ * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
+ */
+public class RunReport
+{
+	public static final String COUNT_PREFIX = "count.";
+	public static final String STAGE_PREFIX = "stage.";
+	public static final String RUN_PREFIX = "run.";
+	public static final String CONCEPTS_PER_SECOND = RUN_PREFIX + "conceptsPerSecond";
+
+	private final TreeMap<String, Number> metrics_ = new TreeMap<>();
+
+	public RunReport()
+	{
+	}
+
+	/**
+	 * Build the report of a run.
+	 * @param ls - the load stats of the run
+	 * @param elapsedMillis - the wall clock time of the run
+	 * @param outputBytes - the size of the output
+	 * @param peakHeapBytes - the peak heap use of the run - see {@link HeapPeakSampler}
+	 */
+	public RunReport(LoadStats ls, long elapsedMillis, long outputBytes, long peakHeapBytes)
+	{
+		for (Map.Entry<String, Long> counter : ls.getCounters().entrySet())
+		{
+			metrics_.put(COUNT_PREFIX + counter.getKey(), counter.getValue());
+		}
+		for (LoadStats.Stage stage : LoadStats.Stage.values())
+		{
+			metrics_.put(STAGE_PREFIX + stage.name() + ".calls", ls.getStageCalls(stage));
+			metrics_.put(STAGE_PREFIX + stage.name() + ".millis", TimeUnit.NANOSECONDS.toMillis(ls.getStageNanos(stage)));
+		}
+		metrics_.put(STAGE_PREFIX + "UUID.calls", ls.getUUIDContext().getUUIDGenerationCount());
+		if (ls.getUUIDContext().isUUIDTimingEnabled())
+		{
+			metrics_.put(STAGE_PREFIX + "UUID.millis", TimeUnit.NANOSECONDS.toMillis(ls.getUUIDContext().getUUIDGenerationNanos()));
+		}
+		metrics_.put(RUN_PREFIX + "elapsedMillis", elapsedMillis);
+		metrics_.put(CONCEPTS_PER_SECOND, elapsedMillis <= 0 ? 0.0 : ls.getConceptCount() / (elapsedMillis / 1000.0));
+		metrics_.put(RUN_PREFIX + "peakHeapBytes", peakHeapBytes);
+		metrics_.put(RUN_PREFIX + "outputBytes", outputBytes);
+	}
+
+	public void put(String metric, Number value)
+	{
+		metrics_.put(metric, value);
+	}
+
+	/**
+	 * @return the value, or null, if the metric isn't in this report
+	 */
+	public Number get(String metric)
+	{
+		return metrics_.get(metric);
+	}
+
+	/**
+	 * @return the metrics, sorted by name
+	 */
+	public Map<String, Number> getMetrics()
+	{
+		return metrics_;
+	}
+
+	/**
+	 * Compare this report against the report of a baseline run.  A regression is a throughput ({@link #CONCEPTS_PER_SECOND}) or
+	 * component count that is more than thresholdPercent below the baseline value - including counts that are missing entirely
+	 * from this report.  Increases are not regressions.
+	 * @return a description of each regression - empty, if there are none.
+	 */
+	public List<String> compareTo(RunReport baseline, double thresholdPercent)
+	{
+		List<String> regressions = new ArrayList<>();
+		for (Map.Entry<String, Number> metric : baseline.metrics_.entrySet())
+		{
+			if (!metric.getKey().startsWith(COUNT_PREFIX) && !metric.getKey().equals(CONCEPTS_PER_SECOND))
+			{
+				continue;
+			}
+			double expected = metric.getValue().doubleValue();
+			if (expected <= 0)
+			{
+				continue;
+			}
+			Number actualValue = metrics_.get(metric.getKey());
+			double actual = (actualValue == null ? 0 : actualValue.doubleValue());
+			double change = (actual - expected) / expected * 100.0;
+			if (change < -thresholdPercent)
+			{
+				regressions.add(metric.getKey() + " dropped from " + metric.getValue() + " to " + (actualValue == null ? "(missing)" : actualValue)
+						+ " (" + Math.round(change) + "%)");
+			}
+		}
+		return regressions;
+	}
+
+	/**
+	 * Write the report as a single JSON object of metric name to value.  The writer is not closed.
+	 */
+	public void writeJson(Writer out) throws IOException
+	{
+		String eol = System.getProperty("line.separator");
+		out.write("{");
+		boolean first = true;
+		for (Map.Entry<String, Number> metric : metrics_.entrySet())
+		{
+			out.write(first ? eol : "," + eol);
+			first = false;
+			out.write("  \"");
+			out.write(escapeJson(metric.getKey()));
+			out.write("\": ");
+			out.write(metric.getValue().toString());
+		}
+		out.write(eol);
+		out.write("}");
+		out.write(eol);
+	}
+
+	/**
+	 * Write the report as CSV - a header line, then one "metric,value" line per metric.  The writer is not closed.
+	 */
+	public void writeCsv(Writer out) throws IOException
+	{
+		String eol = System.getProperty("line.separator");
+		out.write("metric,value");
+		out.write(eol);
+		for (Map.Entry<String, Number> metric : metrics_.entrySet())
+		{
+			out.write(escapeCsv(metric.getKey()));
+			out.write(",");
+			out.write(metric.getValue().toString());
+			out.write(eol);
+		}
+	}
+
+	/**
+	 * Read a report written by {@link #writeJson(Writer)} (if the file name ends in .json) or {@link #writeCsv(Writer)}.
+	 */
+	public static RunReport read(File file) throws IOException
+	{
+		String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+		try
+		{
+			return file.getName().toLowerCase().endsWith(".json") ? parseJson(content) : parseCsv(content);
+		}
+		catch (RuntimeException e)
+		{
+			throw new IOException("Invalid run report " + file.getAbsolutePath() + ": " + e.getMessage(), e);
+		}
+	}
+
+	private static RunReport parseJson(String content)
+	{
+		RunReport result = new RunReport();
+		int pos = skipWhitespace(content, 0);
+		pos = expect(content, pos, '{');
+		pos = skipWhitespace(content, pos);
+		if (pos < content.length() && content.charAt(pos) == '}')
+		{
+			return result;
+		}
+		while (true)
+		{
+			pos = expect(content, skipWhitespace(content, pos), '"');
+			StringBuilder key = new StringBuilder();
+			while (true)
+			{
+				char c = charAt(content, pos++);
+				if (c == '"')
+				{
+					break;
+				}
+				if (c == '\\')
+				{
+					c = charAt(content, pos++);
+					switch (c)
+					{
+						case 'b': key.append('\b'); break;
+						case 'f': key.append('\f'); break;
+						case 'n': key.append('\n'); break;
+						case 'r': key.append('\r'); break;
+						case 't': key.append('\t'); break;
+						case 'u':
+							key.append((char) Integer.parseInt(content.substring(pos, pos + 4), 16));
+							pos += 4;
+							break;
+						default: key.append(c);
+					}
+				}
+				else
+				{
+					key.append(c);
+				}
+			}
+			pos = expect(content, skipWhitespace(content, pos), ':');
+			pos = skipWhitespace(content, pos);
+			int start = pos;
+			while (pos < content.length() && "+-.0123456789eE".indexOf(content.charAt(pos)) >= 0)
+			{
+				pos++;
+			}
+			result.put(key.toString(), parseNumber(content.substring(start, pos)));
+			pos = skipWhitespace(content, pos);
+			char c = charAt(content, pos++);
+			if (c == '}')
+			{
+				return result;
+			}
+			if (c != ',')
+			{
+				throw new IllegalArgumentException("Expected ',' or '}' at position " + (pos - 1));
+			}
+		}
+	}
+
+	private static RunReport parseCsv(String content)
+	{
+		RunReport result = new RunReport();
+		boolean header = true;
+		for (String line : content.split("\r?\n"))
+		{
+			if (header || line.length() == 0)
+			{
+				header = false;
+				continue;
+			}
+			int split = line.lastIndexOf(',');
+			if (split < 0)
+			{
+				throw new IllegalArgumentException("Expected 'metric,value' - found '" + line + "'");
+			}
+			String key = line.substring(0, split);
+			if (key.startsWith("\"") && key.endsWith("\"") && key.length() > 1)
+			{
+				key = key.substring(1, key.length() - 1).replace("\"\"", "\"");
+			}
+			result.put(key, parseNumber(line.substring(split + 1).trim()));
+		}
+		return result;
+	}
+
+	private static Number parseNumber(String value)
+	{
+		if (value.indexOf('.') >= 0 || value.indexOf('e') >= 0 || value.indexOf('E') >= 0)
+		{
+			return Double.valueOf(value);
+		}
+		return Long.valueOf(value);
+	}
+
+	private static int skipWhitespace(String content, int pos)
+	{
+		while (pos < content.length() && Character.isWhitespace(content.charAt(pos)))
+		{
+			pos++;
+		}
+		return pos;
+	}
+
+	private static int expect(String content, int pos, char expected)
+	{
+		if (charAt(content, pos) != expected)
+		{
+			throw new IllegalArgumentException("Expected '" + expected + "' at position " + pos);
+		}
+		return pos + 1;
+	}
+
+	private static char charAt(String content, int pos)
+	{
+		if (pos >= content.length())
+		{
+			throw new IllegalArgumentException("Unexpected end of content");
+		}
+		return content.charAt(pos);
+	}
+
+	private static String escapeJson(String value)
+	{
+		StringBuilder result = new StringBuilder(value.length() + 8);
+		for (int i = 0; i < value.length(); i++)
+		{
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\')
+			{
+				result.append('\\').append(c);
+			}
+			else if (c < 0x20)
+			{
+				result.append(String.format("\\u%04x", (int) c));
+			}
+			else
+			{
+				result.append(c);
+			}
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Quote the value if necessary - line breaks are replaced with spaces, to keep one metric per line.
+	 */
+	private static String escapeCsv(String value)
+	{
+		value = value.replace('\r', ' ').replace('\n', ' ');
+		if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0)
+		{
+			return "\"" + value.replace("\"", "\"\"") + "\"";
+		}
+		return value;
+	}
+}
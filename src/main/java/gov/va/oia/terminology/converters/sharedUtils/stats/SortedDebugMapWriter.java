@@ -0,0 +1,354 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.va.oia.terminology.converters.sharedUtils.stats;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * {@link SortedDebugMapWriter}
+ *
+ * Writes the entries of a UUID debug map in sorted order, without holding a sorted copy of the whole map on the heap.  The
+ * entries are read in chunks of bounded size, each chunk is sorted and spilled to a temporary run file on a worker thread
+ * (while the next chunk is being read), and the runs are then merged straight into the output.  If everything fits in a
+ * single chunk, it is sorted in memory and written directly.
+ *
+ * UUIDs are ordered the same way as their text form (unsigned, most significant bits first), so the output is also in the
+ * order that text tools like sort and comm expect.
+ *
+ * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
+ */
+public class SortedDebugMapWriter
+{
+	public enum SortBy {UUID, CREATION_STRING};
+
+	private static final long CHUNK_BYTES = 32L * 1024 * 1024;
+	private static final String EOL = System.getProperty("line.separator");
+
+	private static final Comparator<Map.Entry<UUID, String>> BY_UUID = new Comparator<Map.Entry<UUID, String>>()
+	{
+		@Override
+		public int compare(Map.Entry<UUID, String> o1, Map.Entry<UUID, String> o2)
+		{
+			return compareUUIDs(o1.getKey(), o2.getKey());
+		}
+	};
+
+	private static final Comparator<Map.Entry<UUID, String>> BY_CREATION_STRING = new Comparator<Map.Entry<UUID, String>>()
+	{
+		@Override
+		public int compare(Map.Entry<UUID, String> o1, Map.Entry<UUID, String> o2)
+		{
+			String s1 = o1.getValue();
+			String s2 = o2.getValue();
+			if (s1 != s2)
+			{
+				if (s1 == null)
+				{
+					return -1;
+				}
+				if (s2 == null)
+				{
+					return 1;
+				}
+				int result = s1.compareTo(s2);
+				if (result != 0)
+				{
+					return result;
+				}
+			}
+			return compareUUIDs(o1.getKey(), o2.getKey());
+		}
+	};
+
+	private final Comparator<Map.Entry<UUID, String>> comparator_;
+	private final File tempDirectory_;
+	private final int threads_;
+
+	/**
+	 * @param sortBy - the sort key
+	 * @param tempDirectory - where to put the temporary run files - which, in total, are about as large as the uncompressed output.
+	 */
+	public SortedDebugMapWriter(SortBy sortBy, File tempDirectory)
+	{
+		comparator_ = (sortBy == SortBy.CREATION_STRING ? BY_CREATION_STRING : BY_UUID);
+		tempDirectory_ = tempDirectory;
+		threads_ = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+	}
+
+	/**
+	 * Receives the entries, in sorted order
+	 */
+	public interface EntryHandler
+	{
+		public void handle(UUID uuid, String value) throws IOException;
+	}
+
+	/**
+	 * Write the entries, one per line, in the same 'uuid - creation string' format as {@link ConverterUUID#dump(File, String)}.
+	 * The writer is not closed.
+	 */
+	public void write(Iterator<Map.Entry<UUID, String>> entries, final Writer out) throws IOException
+	{
+		write(entries, new EntryHandler()
+		{
+			@Override
+			public void handle(UUID uuid, String value) throws IOException
+			{
+				out.write(uuid.toString());
+				out.write(" - ");
+				out.write(String.valueOf(value));
+				out.write(EOL);
+			}
+		});
+	}
+
+	/**
+	 * Pass the entries to the handler, in sorted order.
+	 */
+	public void write(Iterator<Map.Entry<UUID, String>> entries, EntryHandler out) throws IOException
+	{
+		ArrayList<Map.Entry<UUID, String>> chunk = readChunk(entries);
+		if (!entries.hasNext())
+		{
+			Collections.sort(chunk, comparator_);
+			for (Map.Entry<UUID, String> entry : chunk)
+			{
+				out.handle(entry.getKey(), entry.getValue());
+			}
+			return;
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads_);
+		ArrayDeque<Future<File>> pending = new ArrayDeque<>();
+		List<File> runs = new ArrayList<>();
+		try
+		{
+			while (chunk != null)
+			{
+				//bound the chunks held in memory - wait for the oldest spill, before reading another
+				if (pending.size() >= threads_)
+				{
+					runs.add(get(pending.removeFirst()));
+				}
+				final ArrayList<Map.Entry<UUID, String>> toSpill = chunk;
+				pending.add(executor.submit(new Callable<File>()
+				{
+					@Override
+					public File call() throws IOException
+					{
+						return spill(toSpill);
+					}
+				}));
+				chunk = entries.hasNext() ? readChunk(entries) : null;
+			}
+			while (!pending.isEmpty())
+			{
+				runs.add(get(pending.removeFirst()));
+			}
+			merge(runs, out);
+		}
+		finally
+		{
+			executor.shutdownNow();
+			for (Future<File> f : pending)
+			{
+				try
+				{
+					runs.add(f.get());
+				}
+				catch (Exception e)
+				{
+					//already failing
+				}
+			}
+			for (File f : runs)
+			{
+				f.delete();
+			}
+		}
+	}
+
+	private ArrayList<Map.Entry<UUID, String>> readChunk(Iterator<Map.Entry<UUID, String>> entries)
+	{
+		ArrayList<Map.Entry<UUID, String>> chunk = new ArrayList<>();
+		long bytes = 0;
+		while (bytes < CHUNK_BYTES && entries.hasNext())
+		{
+			Map.Entry<UUID, String> entry = entries.next();
+			chunk.add(entry);
+			//entry, UUID, String objects, and the chars
+			bytes += 112 + (entry.getValue() == null ? 0 : entry.getValue().length() * 2);
+		}
+		return chunk;
+	}
+
+	private File spill(ArrayList<Map.Entry<UUID, String>> chunk) throws IOException
+	{
+		Collections.sort(chunk, comparator_);
+		File run = File.createTempFile("UUIDDebugMap", ".run", tempDirectory_);
+		run.deleteOnExit();
+		try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run), 1 << 16)))
+		{
+			for (Map.Entry<UUID, String> entry : chunk)
+			{
+				dos.writeLong(entry.getKey().getMostSignificantBits());
+				dos.writeLong(entry.getKey().getLeastSignificantBits());
+				if (entry.getValue() == null)
+				{
+					dos.writeInt(-1);
+				}
+				else
+				{
+					byte[] value = entry.getValue().getBytes(StandardCharsets.UTF_8);
+					dos.writeInt(value.length);
+					dos.write(value);
+				}
+			}
+		}
+		return run;
+	}
+
+	private void merge(List<File> runs, EntryHandler out) throws IOException
+	{
+		final PriorityQueue<RunReader> queue = new PriorityQueue<>(runs.size(), new Comparator<RunReader>()
+		{
+			@Override
+			public int compare(RunReader o1, RunReader o2)
+			{
+				return comparator_.compare(o1.current_, o2.current_);
+			}
+		});
+		List<RunReader> readers = new ArrayList<>();
+		try
+		{
+			for (File run : runs)
+			{
+				RunReader reader = new RunReader(run);
+				readers.add(reader);
+				if (reader.advance())
+				{
+					queue.add(reader);
+				}
+			}
+			while (!queue.isEmpty())
+			{
+				RunReader reader = queue.poll();
+				out.handle(reader.current_.getKey(), reader.current_.getValue());
+				if (reader.advance())
+				{
+					queue.add(reader);
+				}
+			}
+		}
+		finally
+		{
+			for (RunReader reader : readers)
+			{
+				reader.in_.close();
+			}
+		}
+	}
+
+	private static File get(Future<File> future) throws IOException
+	{
+		try
+		{
+			return future.get();
+		}
+		catch (InterruptedException e)
+		{
+			throw new IOException("Interrupted while sorting the UUID debug map", e);
+		}
+		catch (ExecutionException e)
+		{
+			if (e.getCause() instanceof IOException)
+			{
+				throw (IOException) e.getCause();
+			}
+			throw new IOException("Failure sorting the UUID debug map", e.getCause());
+		}
+	}
+
+	static int compareUUIDs(UUID u1, UUID u2)
+	{
+		int result = Long.compareUnsigned(u1.getMostSignificantBits(), u2.getMostSignificantBits());
+		return result == 0 ? Long.compareUnsigned(u1.getLeastSignificantBits(), u2.getLeastSignificantBits()) : result;
+	}
+
+	private static class RunReader
+	{
+		private final DataInputStream in_;
+		private Map.Entry<UUID, String> current_;
+
+		private RunReader(File run) throws IOException
+		{
+			in_ = new DataInputStream(new BufferedInputStream(new FileInputStream(run), 1 << 16));
+		}
+
+		private boolean advance() throws IOException
+		{
+			long msb;
+			try
+			{
+				msb = in_.readLong();
+			}
+			catch (EOFException e)
+			{
+				current_ = null;
+				return false;
+			}
+			long lsb = in_.readLong();
+			int length = in_.readInt();
+			String value = null;
+			if (length >= 0)
+			{
+				byte[] bytes = new byte[length];
+				in_.readFully(bytes);
+				value = new String(bytes, StandardCharsets.UTF_8);
+			}
+			current_ = new AbstractMap.SimpleImmutableEntry<UUID, String>(new UUID(msb, lsb), value);
+			return true;
+		}
+	}
+}
@@ -0,0 +1,159 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.va.oia.terminology.converters.sharedUtils.stats;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * {@link StringArena}
+ *
+ * An append-only store for strings, which keeps them as UTF-8 bytes packed into large pages rather than as individual
+ * String objects.  Each stored string is identified by a long handle (page number in the upper 32 bits, offset within
+ * the page in the lower 32 bits), which can be handed back to {@link #get(long)} to rebuild the string.
+ *
+ * Space is never reclaimed - other than by {@link #clear()}.
+ *
+ * This class is not thread safe - callers must provide their own locking.
+ *
+ * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
+ */
+public class StringArena
+{
+	private static final int PAGE_SIZE = 1 << 20;
+
+	private byte[][] pages_ = new byte[16][];
+	private int pageCount_ = 0;
+	private int position_ = PAGE_SIZE;  //forces a page allocation on the first append
+	private long bytesUsed_ = 0;
+
+	/**
+	 * Store the string, returning the handle that can be used to retrieve it.
+	 */
+	public long append(String value)
+	{
+		int length = value.length();
+		boolean ascii = true;
+		for (int i = 0; i < length; i++)
+		{
+			if (value.charAt(i) >= 0x80)
+			{
+				ascii = false;
+				break;
+			}
+		}
+
+		if (ascii)
+		{
+			byte[] page = reserve(length);
+			int start = position_;
+			position_ = writeLength(page, position_, length);
+			for (int i = 0; i < length; i++)
+			{
+				page[position_++] = (byte) value.charAt(i);
+			}
+			bytesUsed_ += position_ - start;
+			return handle(start);
+		}
+		else
+		{
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			byte[] page = reserve(bytes.length);
+			int start = position_;
+			position_ = writeLength(page, position_, bytes.length);
+			System.arraycopy(bytes, 0, page, position_, bytes.length);
+			position_ += bytes.length;
+			bytesUsed_ += position_ - start;
+			return handle(start);
+		}
+	}
+
+	/**
+	 * Rebuild the string stored at the specified handle.
+	 */
+	public String get(long handle)
+	{
+		byte[] page = pages_[(int) (handle >>> 32)];
+		int pos = (int) handle;
+		int length = 0;
+		int shift = 0;
+		byte b;
+		do
+		{
+			b = page[pos++];
+			length |= (b & 0x7f) << shift;
+			shift += 7;
+		}
+		while ((b & 0x80) != 0);
+		return new String(page, pos, length, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * The number of bytes consumed by stored strings (excluding unused page space)
+	 */
+	public long getBytesUsed()
+	{
+		return bytesUsed_;
+	}
+
+	public void clear()
+	{
+		pages_ = new byte[16][];
+		pageCount_ = 0;
+		position_ = PAGE_SIZE;
+		bytesUsed_ = 0;
+	}
+
+	/**
+	 * Make sure the current page has room for a string of the given byte length (plus its length header) - allocating a
+	 * new page if necessary.
+	 */
+	private byte[] reserve(int byteLength)
+	{
+		int required = byteLength + 5;
+		byte[] current = (pageCount_ == 0 ? null : pages_[pageCount_ - 1]);
+		if (current == null || current.length - position_ < required)
+		{
+			if (pageCount_ == pages_.length)
+			{
+				pages_ = Arrays.copyOf(pages_, pages_.length * 2);
+			}
+			current = new byte[Math.max(PAGE_SIZE, required)];
+			pages_[pageCount_++] = current;
+			position_ = 0;
+		}
+		return current;
+	}
+
+	private long handle(int offset)
+	{
+		return ((long) (pageCount_ - 1) << 32) | offset;
+	}
+
+	private static int writeLength(byte[] page, int pos, int length)
+	{
+		while ((length & ~0x7f) != 0)
+		{
+			page[pos++] = (byte) ((length & 0x7f) | 0x80);
+			length >>>= 7;
+		}
+		page[pos++] = (byte) length;
+		return pos;
+	}
+}
@@ -0,0 +1,193 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.va.oia.terminology.converters.sharedUtils.stats;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+/**
+ * {@link StripedUUIDMap}
+ *
+ * A lock striped {@link UUIDDebugMap} - the UUIDs are spread over a fixed set of {@link PrimitiveUUIDMap} stripes, each with
+ * its own lock, so threads generating UUIDs concurrently only contend when they hit the same stripe.  Every operation on a
+ * UUID is handled entirely within its stripe, so duplicate detection and the creation string lookups are exactly the same
+ * as with a single map.
+ *
+ * The stripe is chosen from the high bits of the UUID hash, while the stripes themselves index on the low bits - so the
+ * entries still spread evenly within each stripe.
+ *
+ * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
+ */
+public class StripedUUIDMap implements UUIDDebugMap
+{
+	private final PrimitiveUUIDMap[] stripes_;
+	private final int shift_;
+
+	/**
+	 * Size the stripe count from the number of available processors.
+	 */
+	public StripedUUIDMap()
+	{
+		this(Runtime.getRuntime().availableProcessors() * 2);
+	}
+
+	/**
+	 * @param stripeCount - the number of independently locked stripes - rounded up to a power of 2, max 256.
+	 */
+	public StripedUUIDMap(int stripeCount)
+	{
+		int bits = 0;
+		while ((1 << bits) < stripeCount && bits < 8)
+		{
+			bits++;
+		}
+		stripes_ = new PrimitiveUUIDMap[1 << bits];
+		for (int i = 0; i < stripes_.length; i++)
+		{
+			stripes_[i] = new PrimitiveUUIDMap();
+		}
+		shift_ = 32 - bits;
+	}
+
+	@Override
+	public String put(UUID uuid, String value)
+	{
+		return stripe(uuid).put(uuid, value);
+	}
+
+	@Override
+	public boolean add(UUID uuid)
+	{
+		return stripe(uuid).add(uuid);
+	}
+
+	@Override
+	public boolean add(UUID uuid, String value)
+	{
+		return stripe(uuid).add(uuid, value);
+	}
+
+	@Override
+	public String get(UUID uuid)
+	{
+		return stripe(uuid).get(uuid);
+	}
+
+	@Override
+	public boolean containsKey(UUID uuid)
+	{
+		return stripe(uuid).containsKey(uuid);
+	}
+
+	@Override
+	public String remove(UUID uuid)
+	{
+		return stripe(uuid).remove(uuid);
+	}
+
+	/**
+	 * The sum of the stripe sizes - not an atomic snapshot, if other threads are writing.
+	 */
+	@Override
+	public int size()
+	{
+		int size = 0;
+		for (PrimitiveUUIDMap stripe : stripes_)
+		{
+			size += stripe.size();
+		}
+		return size;
+	}
+
+	@Override
+	public void clear()
+	{
+		for (PrimitiveUUIDMap stripe : stripes_)
+		{
+			stripe.clear();
+		}
+	}
+
+	@Override
+	public void close()
+	{
+		for (PrimitiveUUIDMap stripe : stripes_)
+		{
+			stripe.close();
+		}
+	}
+
+	public int getStripeCount()
+	{
+		return stripes_.length;
+	}
+
+	/**
+	 * An approximation of the heap used by this map, in bytes.
+	 */
+	public long getMemoryUse()
+	{
+		long total = 0;
+		for (PrimitiveUUIDMap stripe : stripes_)
+		{
+			total += stripe.getMemoryUse();
+		}
+		return total;
+	}
+
+	/**
+	 * Iterate the entries, stripe by stripe.  The results are undefined if the map is modified during iteration.
+	 */
+	@Override
+	public Iterator<Map.Entry<UUID, String>> iterator()
+	{
+		return new Iterator<Map.Entry<UUID, String>>()
+		{
+			int stripe_ = 0;
+			Iterator<Map.Entry<UUID, String>> current_ = stripes_[0].iterator();
+
+			@Override
+			public boolean hasNext()
+			{
+				while (!current_.hasNext() && stripe_ < stripes_.length - 1)
+				{
+					current_ = stripes_[++stripe_].iterator();
+				}
+				return current_.hasNext();
+			}
+
+			@Override
+			public Map.Entry<UUID, String> next()
+			{
+				if (!hasNext())
+				{
+					throw new NoSuchElementException();
+				}
+				return current_.next();
+			}
+		};
+	}
+
+	private PrimitiveUUIDMap stripe(UUID uuid)
+	{
+		return stripes_.length == 1 ? stripes_[0] : stripes_[PrimitiveUUIDMap.hash(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()) >>> shift_];
+	}
+}
@@ -0,0 +1,310 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.va.oia.terminology.converters.sharedUtils.stats;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.UUID;
+
+/**
+ * {@link Type5UUIDBuilder}
+ *
+ * Builds a Type 5 UUID from a series of values, feeding them straight into a reused SHA-1 digest - rather than concatenating
+ * them into a String (and converting any UUIDs to Strings) first.  The result is bit-identical to calling
+ * UuidT5Generator.get(namespace, name) where name is the values joined with '|' (nulls skipped) - the same key that
+ * {@link ConverterUUID#createNamespaceUUIDFromStrings(String...)} builds.  Like UuidT5Generator, characters are encoded as
+ * ISO-8859-1, with unmappable characters written as '?'.
+ *
+ * The creation string itself is only assembled when the caller asks for it (to populate the UUID debug map).
+ *
+ * Instances are obtained from {@link ConverterUUIDContext#uuidBuilder()} (or {@link ConverterUUID#uuidBuilder()}) - they are 
+ * reused per thread, and are not thread safe.
+ *
+ * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
+ */
+public class Type5UUIDBuilder
+{
+	private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+	private final MessageDigest sha1_;
+	private final byte[] scratch_ = new byte[256];
+	private final StringBuilder name_ = new StringBuilder();
+	private ConverterUUIDContext context_;
+	private UUID namespace_;
+	private boolean keepName_;
+	private int nameLength_;
+	private int valueCount_;
+	long timerStart_;
+	boolean inUse_;
+	boolean skipDupeCheck_;
+
+	Type5UUIDBuilder()
+	{
+		try
+		{
+			sha1_ = MessageDigest.getInstance("SHA-1");
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			throw new RuntimeException("Unexpected error configuring UUID generator", e);
+		}
+	}
+
+	/**
+	 * Start a new UUID
+	 * @param context - the context that will register the UUID on {@link #create()}
+	 * @param namespace - optional
+	 * @param keepName - true to also assemble the creation string
+	 */
+	Type5UUIDBuilder reset(ConverterUUIDContext context, UUID namespace, boolean keepName)
+	{
+		timerStart_ = (context != null && context.isUUIDTimingEnabled()) ? System.nanoTime() : 0;
+		sha1_.reset();
+		context_ = context;
+		namespace_ = namespace;
+		if (namespace != null)
+		{
+			writeLong(namespace.getMostSignificantBits(), 0);
+			writeLong(namespace.getLeastSignificantBits(), 8);
+			sha1_.update(scratch_, 0, 16);
+		}
+		keepName_ = keepName;
+		name_.setLength(0);
+		nameLength_ = 0;
+		valueCount_ = 0;
+		skipDupeCheck_ = false;
+		return this;
+	}
+
+	/**
+	 * Add a value - its toString() form is used.  Nulls are ignored.
+	 */
+	public Type5UUIDBuilder add(UUID value)
+	{
+		if (value != null)
+		{
+			separator();
+			writeHex(value.getMostSignificantBits() >>> 32, 8, 0);
+			scratch_[8] = '-';
+			writeHex(value.getMostSignificantBits() >>> 16, 4, 9);
+			scratch_[13] = '-';
+			writeHex(value.getMostSignificantBits(), 4, 14);
+			scratch_[18] = '-';
+			writeHex(value.getLeastSignificantBits() >>> 48, 4, 19);
+			scratch_[23] = '-';
+			writeHex(value.getLeastSignificantBits(), 12, 24);
+			sha1_.update(scratch_, 0, 36);
+			nameLength_ += 36;
+			if (keepName_)
+			{
+				name_.append(value.toString());
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Add a value.  Nulls are ignored.
+	 */
+	public Type5UUIDBuilder add(String value)
+	{
+		if (value != null)
+		{
+			separator();
+			int length = value.length();
+			int pos = 0;
+			for (int i = 0; i < length; i++)
+			{
+				char c = value.charAt(i);
+				if (c <= 0xff)
+				{
+					scratch_[pos++] = (byte) c;
+				}
+				else
+				{
+					//A valid surrogate pair is a single unmappable character, so a single replacement.
+					if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1)))
+					{
+						i++;
+					}
+					scratch_[pos++] = '?';
+				}
+				if (pos == scratch_.length)
+				{
+					sha1_.update(scratch_, 0, pos);
+					pos = 0;
+				}
+			}
+			if (pos > 0)
+			{
+				sha1_.update(scratch_, 0, pos);
+			}
+			nameLength_ += length;
+			if (keepName_)
+			{
+				name_.append(value);
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Add a value - its name() is used.  Nulls are ignored.
+	 */
+	public Type5UUIDBuilder add(Enum<?> value)
+	{
+		return add(value == null ? null : value.name());
+	}
+
+	/**
+	 * Add a value - as "true" or "false"
+	 */
+	public Type5UUIDBuilder add(boolean value)
+	{
+		return add(value ? "true" : "false");
+	}
+
+	/**
+	 * Add a value - as its decimal form
+	 */
+	public Type5UUIDBuilder add(int value)
+	{
+		if (value == Integer.MIN_VALUE)
+		{
+			return add(Integer.toString(value));
+		}
+		separator();
+		int pos = scratch_.length;
+		int remaining = Math.abs(value);
+		do
+		{
+			scratch_[--pos] = (byte) ('0' + (remaining % 10));
+			remaining /= 10;
+		}
+		while (remaining > 0);
+		if (value < 0)
+		{
+			scratch_[--pos] = '-';
+		}
+		sha1_.update(scratch_, pos, scratch_.length - pos);
+		nameLength_ += scratch_.length - pos;
+		if (keepName_)
+		{
+			name_.append(value);
+		}
+		return this;
+	}
+
+	/**
+	 * Bypass the duplicate checking function - useful in cases where you know you are creating the same UUID more than once.
+	 */
+	public Type5UUIDBuilder skipDupeCheck()
+	{
+		skipDupeCheck_ = true;
+		return this;
+	}
+
+	/**
+	 * Finish the UUID, and register it with the debug map of the {@link ConverterUUIDContext} it came from (including the 
+	 * duplicate check).  The builder may not be used again after this call - get a new one from 
+	 * {@link ConverterUUIDContext#uuidBuilder()}.
+	 */
+	public UUID create()
+	{
+		return context_.finish(this);
+	}
+
+	UUID getNamespace()
+	{
+		return namespace_;
+	}
+
+	/**
+	 * @return the creation string - only available if requested at reset.
+	 */
+	String getName()
+	{
+		return keepName_ ? name_.toString() : null;
+	}
+
+	/**
+	 * Matches the behavior of createNamespaceUUIDFromStrings - which rejects a key of fewer than 2 characters (counting the
+	 * separators and the trailing separator it trims)
+	 */
+	boolean hasValues()
+	{
+		return nameLength_ + valueCount_ > 1;
+	}
+
+	/**
+	 * Compute the UUID - the same steps (and result) as UuidT5Generator.
+	 */
+	UUID digest()
+	{
+		byte[] sha1digest = sha1_.digest();
+		sha1digest[6] &= 0x0f; /* clear version */
+		sha1digest[6] |= 0x50; /* set to version 5 */
+		sha1digest[8] &= 0x3f; /* clear variant */
+		sha1digest[8] |= 0x80; /* set to IETF variant */
+
+		long msb = 0;
+		long lsb = 0;
+		for (int i = 0; i < 8; i++)
+		{
+			msb = (msb << 8) | (sha1digest[i] & 0xff);
+		}
+		for (int i = 8; i < 16; i++)
+		{
+			lsb = (lsb << 8) | (sha1digest[i] & 0xff);
+		}
+		return new UUID(msb, lsb);
+	}
+
+	private void separator()
+	{
+		if (valueCount_ > 0)
+		{
+			scratch_[0] = '|';
+			sha1_.update(scratch_, 0, 1);
+			if (keepName_)
+			{
+				name_.append('|');
+			}
+		}
+		valueCount_++;
+	}
+
+	private void writeHex(long value, int digits, int offset)
+	{
+		for (int i = digits - 1; i >= 0; i--)
+		{
+			scratch_[offset + i] = HEX[(int) (value & 0xf)];
+			value >>>= 4;
+		}
+	}
+
+	private void writeLong(long value, int offset)
+	{
+		for (int i = 7; i >= 0; i--)
+		{
+			scratch_[offset + i] = (byte) value;
+			value >>>= 8;
+		}
+	}
+}
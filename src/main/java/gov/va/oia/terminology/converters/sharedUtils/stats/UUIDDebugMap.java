@@ -0,0 +1,80 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.va.oia.terminology.converters.sharedUtils.stats;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * {@link UUIDDebugMap}
+ *
+ * The storage behind the {@link ConverterUUID} debug map - UUIDs to the strings that were used to create them.
+ *
+ * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
+ */
+public interface UUIDDebugMap
+{
+	/**
+	 * Store the mapping, replacing any existing value.
+	 * @return the value previously stored for this UUID, or null, if none - note that null is also returned for a UUID that was 
+	 *     stored without a value, so use {@link #add(UUID, String)} to detect duplicates.
+	 */
+	public String put(UUID uuid, String value);
+
+	/**
+	 * Store the UUID, without any value.  If the UUID is already present, any existing value is left as is.
+	 * @return true if the UUID was added, false if it was already present.
+	 */
+	public boolean add(UUID uuid);
+
+	/**
+	 * Store the mapping, if the UUID is not already present.  If it is, the existing entry (with or without a value) is left as 
+	 * is, and nothing is stored for the value.
+	 * @param value - the value to store, or null, to store the UUID without a value.
+	 * @return true if the UUID was added, false if it was already present.
+	 */
+	public boolean add(UUID uuid, String value);
+
+	/**
+	 * @return the value stored for this UUID, or null, if none.
+	 */
+	public String get(UUID uuid);
+
+	public boolean containsKey(UUID uuid);
+
+	/**
+	 * @return the value previously stored for this UUID, or null, if none.
+	 */
+	public String remove(UUID uuid);
+
+	public int size();
+
+	public void clear();
+
+	/**
+	 * Iterate the entries.  The results are undefined if the map is modified during iteration.
+	 */
+	public Iterator<Map.Entry<UUID, String>> iterator();
+
+	/**
+	 * Release any resources held by the map.  The map should not be used after this call.
+	 */
+	public void close();
+}
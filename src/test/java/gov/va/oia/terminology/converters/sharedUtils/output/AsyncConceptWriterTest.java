@@ -0,0 +1,91 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.va.oia.terminology.converters.sharedUtils.output;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import org.ihtsdo.otf.tcc.dto.TtkConceptChronicle;
+import org.junit.Test;
+
+/**
+ * {@link AsyncConceptWriterTest}
+ *
+ * The buffered writes through {@link AsyncConceptWriter#getDataOutputStream()} stay in order with the queued concepts.
+ *
+ * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
+ */
+public class AsyncConceptWriterTest
+{
+	private static class TestConcept extends TtkConceptChronicle
+	{
+		private final int id_;
+
+		private TestConcept(int id)
+		{
+			id_ = id;
+		}
+
+		@Override
+		public void writeExternal(DataOutput out) throws IOException
+		{
+			out.writeInt(id_);
+			out.writeUTF("concept " + id_);
+		}
+	}
+
+	@Test
+	public void testDirectWritesStayInOrder() throws IOException
+	{
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		DataOutputStream sequential = new DataOutputStream(expected);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		AsyncConceptWriter writer = new AsyncConceptWriter(out, 10);
+		DataOutputStream direct = writer.getDataOutputStream();
+		byte[] large = new byte[20000];
+		for (int i = 0; i < large.length; i++)
+		{
+			large[i] = (byte) i;
+		}
+		for (int i = 0; i < 5000; i++)
+		{
+			writer.write(new TestConcept(i));
+			new TestConcept(i).writeExternal(sequential);
+			for (DataOutputStream dos : new DataOutputStream[] {direct, sequential})
+			{
+				dos.writeInt(-i);
+				dos.writeLong(i);
+				if (i % 1000 == 0)
+				{
+					dos.write(large, i % 7, large.length - i % 7);
+				}
+			}
+		}
+		assertFalse(writer.isClosed());
+		direct.close();
+		assertTrue(writer.isClosed());
+		assertEquals(expected.size(), writer.getBytesWritten());
+		assertArrayEquals(expected.toByteArray(), out.toByteArray());
+	}
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.va.oia.terminology.converters.sharedUtils.output;
+
+import static org.junit.Assert.assertArrayEquals;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * {@link ChannelDataOutputBenchmarkTest}
+ *
+ * Benchmarks a {@link ChannelDataOutput}, in buffer and mapped mode, against the buffered stream path that the mojo otherwise 
+ * uses - writing about 100MB per round.  The timings are printed, not asserted.  Only runs with -Pbenchmark (or -Dbenchmark=true).
+ *
+ * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
+ */
+public class ChannelDataOutputBenchmarkTest
+{
+	private static final int BENCHMARK_RECORDS = 2000000;
+	private static final int BENCHMARK_ROUNDS = 3;
+
+	@Rule
+	public TemporaryFolder folder_ = new TemporaryFolder();
+
+	@Before
+	public void onlyWhenBenchmarking()
+	{
+		Assume.assumeTrue("Benchmarks only run with -Pbenchmark", Boolean.getBoolean("benchmark"));
+	}
+
+	@Test
+	public void testBenchmarkAgainstBufferedStream() throws IOException
+	{
+		byte[] reference = null;
+		for (int round = 0; round < BENCHMARK_ROUNDS; round++)
+		{
+			File streamFile = new File(folder_.getRoot(), "bench-stream.bin");
+			long start = System.nanoTime();
+			DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(streamFile)));
+			ChannelDataOutputTest.writeRecords(dos, BENCHMARK_RECORDS);
+			dos.close();
+			long streamMillis = (System.nanoTime() - start) / 1000000;
+
+			long[] channelMillis = new long[2];
+			for (int mode = 0; mode < 2; mode++)
+			{
+				File channelFile = new File(folder_.getRoot(), "bench-channel-" + mode + ".bin");
+				start = System.nanoTime();
+				ChannelDataOutput cdo = ChannelDataOutput.open(channelFile, mode == 1);
+				ChannelDataOutputTest.writeRecords(cdo, BENCHMARK_RECORDS);
+				cdo.close();
+				channelMillis[mode] = (System.nanoTime() - start) / 1000000;
+				if (round == 0)
+				{
+					if (reference == null)
+					{
+						reference = Files.readAllBytes(streamFile.toPath());
+					}
+					assertArrayEquals(reference, Files.readAllBytes(channelFile.toPath()));
+				}
+			}
+			System.out.println("Round " + (round + 1) + ", " + streamFile.length() + " bytes: buffered stream " + streamMillis + " ms, channel buffer " 
+					+ channelMillis[0] + " ms, channel mapped " + channelMillis[1] + " ms");
+		}
+	}
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.va.oia.terminology.converters.sharedUtils.output;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import java.io.BufferedOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * {@link ChannelDataOutputTest}
+ *
+ * Checks that a {@link ChannelDataOutput} - in buffer and mapped mode - writes exactly the bytes that a {@link DataOutputStream} 
+ * does.  The throughput of both modes is measured by {@link ChannelDataOutputBenchmarkTest}.
+ *
+ * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
+ */
+public class ChannelDataOutputTest
+{
+	private static final int RECORDS = 20000;
+
+	@Rule
+	public TemporaryFolder folder_ = new TemporaryFolder();
+
+	@Test
+	public void testSameBytesAsDataOutputStream() throws IOException
+	{
+		File expected = folder_.newFile("stream.bin");
+		DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(expected)));
+		writeRecords(dos, RECORDS);
+		dos.close();
+
+		//small regions, so that the records straddle the buffer and region boundaries
+		for (boolean mapped : new boolean[] {false, true})
+		{
+			File actual = folder_.newFile("channel-" + mapped + ".bin");
+			ChannelDataOutput cdo = new ChannelDataOutput(new RandomAccessFile(actual, "rw").getChannel(), mapped, 4099);
+			writeRecords(cdo, RECORDS);
+			long written = cdo.getBytesWritten();
+			cdo.close();
+			assertEquals("bytes written, mapped " + mapped, expected.length(), written);
+			assertArrayEquals("content, mapped " + mapped, Files.readAllBytes(expected.toPath()), Files.readAllBytes(actual.toPath()));
+		}
+	}
+
+	/**
+	 * Records shaped like concept components - UUIDs, ints, times and strings (some not ASCII).
+	 */
+	static void writeRecords(DataOutput out, int count) throws IOException
+	{
+		Random random = new Random(42);
+		for (int i = 0; i < count; i++)
+		{
+			out.writeLong(random.nextLong());
+			out.writeLong(random.nextLong());
+			out.writeInt(i);
+			out.writeLong(1400000000000L + i);
+			out.writeBoolean((i & 1) == 0);
+			out.writeShort(i);
+			out.writeUTF(i % 10 == 0 ? "caf\u00e9 \u00df\u4e2d " + i : "description " + i);
+		}
+	}
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.va.oia.terminology.converters.sharedUtils.output;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import gov.va.oia.terminology.converters.sharedUtils.EConceptUtility;
+import gov.va.oia.terminology.converters.sharedUtils.EConceptUtility.DescriptionType;
+import gov.va.oia.terminology.converters.sharedUtils.propertyTypes.BPT_Annotations;
+import gov.va.oia.terminology.converters.sharedUtils.stats.ConverterUUIDContext;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.util.List;
+import java.util.UUID;
+import org.ihtsdo.otf.tcc.api.coordinate.Status;
+import org.ihtsdo.otf.tcc.dto.TtkConceptChronicle;
+import org.ihtsdo.otf.tcc.dto.component.description.TtkDescriptionChronicle;
+import org.junit.Test;
+
+/**
+ * {@link ConceptWriterDeterminismTest}
+ *
+ * Concepts built by {@link EConceptUtility} and written through a {@link ParallelConceptWriter} must produce byte for byte the 
+ * output of a {@link DirectConceptWriter} - and the same load stats - at any thread count.  This covers the real eConcept 
+ * serialization, and the validation (which adds a preferred synonym to the concepts that lack one, generating its UUID and 
+ * updating the load stats) running on the worker threads.
+ *
+ * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
+ */
+public class ConceptWriterDeterminismTest
+{
+	private static final int CONCEPTS = 3000;
+	private static final long TIME = 1420070400000L;
+
+	@Test
+	public void testParallelOutputMatchesDirect() throws Exception
+	{
+		Run expected = new Run(0);
+		assertTrue(expected.bytes_.length > 0);
+		for (int threads : new int[] {1, 4, 16})
+		{
+			Run run = new Run(threads);
+			assertEquals("load stats, " + threads + " threads", expected.summary_, run.summary_);
+			assertEquals("bytes written, " + threads + " threads", expected.bytes_.length, run.bytesWritten_);
+			assertArrayEquals("output, " + threads + " threads", expected.bytes_, run.bytes_);
+		}
+	}
+
+	/**
+	 * A conversion of CONCEPTS concepts, in its own UUID context - written with a {@link DirectConceptWriter} (threads = 0) or a 
+	 * {@link ParallelConceptWriter}.
+	 */
+	private static class Run
+	{
+		private final byte[] bytes_;
+		private final long bytesWritten_;
+		private final List<String> summary_;
+
+		private Run(int threads) throws Exception
+		{
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			ConceptWriter writer;
+			DataOutputStream dos;
+			if (threads == 0)
+			{
+				DirectConceptWriter direct = new DirectConceptWriter(out);
+				dos = direct.getDataOutputStream();
+				writer = direct;
+			}
+			else
+			{
+				ParallelConceptWriter parallel = new ParallelConceptWriter(out, threads);
+				dos = parallel.getDataOutputStream();
+				writer = parallel;
+			}
+
+			ConverterUUIDContext uuidContext = new ConverterUUIDContext();
+			EConceptUtility util = new EConceptUtility(uuidContext, "ConceptWriterDeterminismTest", "Test Path", dos, TIME);
+			TtkConceptChronicle root = util.createConcept(uuidContext.createNamespaceUUIDFromString("root"), "Test Root", TIME, Status.ACTIVE);
+			root.writeExternal(dos);
+			BPT_Annotations annotations = new BPT_Annotations(uuidContext);
+			UUID note = annotations.addProperty("Note").getUUID();
+			util.loadMetaDataItems(annotations, root.getPrimordialUuid(), dos);
+			UUID parent = root.getPrimordialUuid();
+			for (int i = 0; i < CONCEPTS; i++)
+			{
+				TtkConceptChronicle concept = util.createConcept(uuidContext.createNamespaceUUIDFromString("concept " + i), (Long) (TIME + i), 
+						i % 50 == 0 ? Status.INACTIVE : Status.ACTIVE);
+				TtkDescriptionChronicle fsn = util.addFullySpecifiedName(concept, "Concept " + i + " (test)");
+				switch (i % 4)
+				{
+					case 0:
+						//no preferred synonym - validation creates it, copying the FSN annotations
+						util.addStringAnnotation(fsn, "note " + i, note, Status.ACTIVE);
+						break;
+					case 1:
+						util.addDescription(concept, "Concept " + i, DescriptionType.SYNONYM, true, null, null, Status.ACTIVE);
+						break;
+					case 2:
+						util.addDescription(concept, "Other " + i, DescriptionType.SYNONYM, false, null, null, Status.ACTIVE);
+						util.addDescription(concept, "Concept number " + i, DescriptionType.DEFINITION, true, null, null, Status.ACTIVE);
+						break;
+					default:
+						//no preferred synonym, and no FSN annotations to copy
+						util.addDescription(concept, "Concept " + i, DescriptionType.SYNONYM, false, null, null, Status.ACTIVE);
+						break;
+				}
+				util.addRelationship(concept, parent);
+				util.addStringAnnotation(concept, "value " + i, note, Status.ACTIVE);
+				if (i % 10 == 0)
+				{
+					parent = concept.getPrimordialUuid();
+				}
+				writer.write(concept);
+				if (i % 500 == 0)
+				{
+					//metadata written directly is ordered after the concepts already passed to write
+					util.createConcept(uuidContext.createNamespaceUUIDFromString("metadata " + i), "Metadata " + i, TIME, Status.ACTIVE)
+						.writeExternal(dos);
+				}
+			}
+			writer.close();
+			bytes_ = out.toByteArray();
+			bytesWritten_ = writer.getBytesWritten();
+			summary_ = util.getLoadStats().getSummary(false);
+		}
+	}
+}
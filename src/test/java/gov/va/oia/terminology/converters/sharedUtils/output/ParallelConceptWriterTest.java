@@ -0,0 +1,118 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.va.oia.terminology.converters.sharedUtils.output;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import org.ihtsdo.otf.tcc.dto.TtkConceptChronicle;
+import org.junit.Test;
+
+/**
+ * {@link ParallelConceptWriterTest}
+ *
+ * The output of a {@link ParallelConceptWriter} must be byte for byte the same as writing the concepts one after the other - 
+ * whatever the thread count, and however the serialization of the concepts overlaps.
+ *
+ * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
+ */
+public class ParallelConceptWriterTest
+{
+	private static final int CONCEPTS = 2000;
+
+	/**
+	 * A concept that writes a pseudo random body of pseudo random size - and takes a pseudo random time to do it, so that 
+	 * concepts finish out of order.
+	 */
+	private static class TestConcept extends TtkConceptChronicle
+	{
+		private final int seed_;
+
+		private TestConcept(int seed)
+		{
+			seed_ = seed;
+		}
+
+		@Override
+		public void writeExternal(DataOutput out) throws IOException
+		{
+			Random random = new Random(seed_);
+			out.writeInt(seed_);
+			int fields = random.nextInt(200);
+			for (int i = 0; i < fields; i++)
+			{
+				out.writeLong(random.nextLong());
+				out.writeUTF("concept " + seed_ + " field " + i);
+			}
+			if (random.nextInt(10) == 0)
+			{
+				try
+				{
+					Thread.sleep(random.nextInt(3));
+				}
+				catch (InterruptedException e)
+				{
+					throw new IOException(e);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testOutputIsIdenticalAtAnyThreadCount() throws IOException
+	{
+		byte[] expected = sequential();
+		for (int threads : new int[] {1, 4, 16})
+		{
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			ParallelConceptWriter writer = new ParallelConceptWriter(out, threads);
+			for (int i = 0; i < CONCEPTS; i++)
+			{
+				writer.write(new TestConcept(i));
+				if (i % 500 == 0)
+				{
+					//direct writes are ordered after the concepts already passed to write
+					writer.getDataOutputStream().writeInt(-i);
+				}
+			}
+			writer.close();
+			assertEquals("bytes written, " + threads + " threads", expected.length, writer.getBytesWritten());
+			assertArrayEquals("output, " + threads + " threads", expected, out.toByteArray());
+		}
+	}
+
+	private static byte[] sequential() throws IOException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		DataOutputStream dos = new DataOutputStream(out);
+		for (int i = 0; i < CONCEPTS; i++)
+		{
+			new TestConcept(i).writeExternal(dos);
+			if (i % 500 == 0)
+			{
+				dos.writeInt(-i);
+			}
+		}
+		return out.toByteArray();
+	}
+}
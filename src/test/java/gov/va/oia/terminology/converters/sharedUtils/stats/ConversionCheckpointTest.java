@@ -0,0 +1,133 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.va.oia.terminology.converters.sharedUtils.stats;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.UUID;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * {@link ConversionCheckpointTest}
+ *
+ * Checkpoints only append the UUIDs generated since the previous checkpoint to the journal, and a restore ignores whatever was 
+ * written to the journal after the checkpoint it restores.
+ *
+ * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
+ */
+public class ConversionCheckpointTest
+{
+	private static final UUID NAMESPACE = UUID.fromString("9b2c9a9e-9d9f-4b7e-8e0a-1b3a2c4d5e6f");
+
+	@Rule
+	public TemporaryFolder folder_ = new TemporaryFolder();
+
+	@Test
+	public void testJournalOnlyAppendsNewUUIDs() throws Exception
+	{
+		File file = new File(folder_.getRoot(), "out.jbin.checkpoint");
+		File journal = ConversionCheckpoint.getJournalFile(file);
+		ConverterUUIDContext uuidContext = createContext();
+		LoadStats ls = new LoadStats(uuidContext);
+		generate(uuidContext, 0, 10000);
+
+		ConversionCheckpoint.write(file, 100, 1, ls, uuidContext);
+		long full = journal.length();
+		long checkpointSize = file.length();
+
+		ConversionCheckpoint.write(file, 200, 2, ls, uuidContext);
+		assertEquals("Nothing new to journal", full, journal.length());
+
+		generate(uuidContext, 10000, 10010);
+		ConversionCheckpoint.write(file, 300, 3, ls, uuidContext);
+		long grown = journal.length() - full;
+		assertTrue("Journal grew by " + grown + " bytes for 10 UUIDs", grown > 0 && grown < (full / 10000) * 20);
+		assertEquals("The checkpoint file doesn't grow with the UUID map", checkpointSize, file.length());
+	}
+
+	@Test
+	public void testRestoreIgnoresJournalAfterCheckpoint() throws Exception
+	{
+		File file = new File(folder_.getRoot(), "out.jbin.checkpoint");
+		File journal = ConversionCheckpoint.getJournalFile(file);
+		ConverterUUIDContext uuidContext = createContext();
+		LoadStats ls = new LoadStats(uuidContext);
+		generate(uuidContext, 0, 1000);
+		UUID removed = uuidContext.createNamespaceUUIDFromString("removed");
+		ConversionCheckpoint.write(file, 100, 1, ls, uuidContext);
+		uuidContext.removeMapping(removed);
+		generate(uuidContext, 1000, 1500);
+		ConversionCheckpoint.write(file, 200, 2, ls, uuidContext);
+		long length = journal.length();
+
+		//a crash after the journal was appended to, before the next checkpoint was moved into place
+		try (FileOutputStream out = new FileOutputStream(journal, true))
+		{
+			out.write(new byte[] {1, 2, 3, 4, 5, 6, 7});
+		}
+
+		ConverterUUIDContext resumed = createContext();
+		ConversionCheckpoint checkpoint = ConversionCheckpoint.read(file);
+		assertEquals(200, checkpoint.getOutputOffset());
+		assertEquals(2, checkpoint.getSourcePosition());
+		checkpoint.restore(new LoadStats(resumed), resumed);
+		assertEquals(length, journal.length());
+		assertEquals(uuidContext.getUUIDMapSize(), resumed.getUUIDMapSize());
+		assertNull(resumed.getUUIDCreationString(removed));
+		assertEquals("name 1499", resumed.getUUIDCreationString(resumed.createNamespaceUUIDFromString("name 1499", true)));
+		try
+		{
+			resumed.createNamespaceUUIDFromString("name 5");
+			fail("A UUID generated before the checkpoint wasn't detected as a duplicate");
+		}
+		catch (RuntimeException e)
+		{
+			//expected
+		}
+
+		//the resumed context appends to the journal, so a second resume sees both
+		generate(resumed, 1500, 1600);
+		ConversionCheckpoint.write(file, 300, 3, new LoadStats(resumed), resumed);
+		ConverterUUIDContext again = createContext();
+		ConversionCheckpoint.read(file).restore(new LoadStats(again), again);
+		assertEquals(resumed.getUUIDMapSize(), again.getUUIDMapSize());
+		assertEquals("name 1599", again.getUUIDCreationString(again.createNamespaceUUIDFromString("name 1599", true)));
+	}
+
+	private static ConverterUUIDContext createContext()
+	{
+		ConverterUUIDContext uuidContext = new ConverterUUIDContext();
+		uuidContext.configureNamespace(NAMESPACE);
+		return uuidContext;
+	}
+
+	private static void generate(ConverterUUIDContext uuidContext, int from, int to)
+	{
+		for (int i = from; i < to; i++)
+		{
+			uuidContext.createNamespaceUUIDFromString("name " + i);
+		}
+	}
+}
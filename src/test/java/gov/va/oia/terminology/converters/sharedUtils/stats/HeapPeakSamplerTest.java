@@ -0,0 +1,56 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.va.oia.terminology.converters.sharedUtils.stats;
+
+import static org.junit.Assert.assertTrue;
+import java.lang.management.ManagementFactory;
+import org.junit.Test;
+
+/**
+ * {@link HeapPeakSamplerTest}
+ *
+ * The peak covers heap use while the sampler runs - and doesn't include the peak of an earlier run in the same JVM.
+ *
+ * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
+ */
+public class HeapPeakSamplerTest
+{
+	private static final int MB = 1024 * 1024;
+
+	@Test
+	public void testPeakIsPerRun() throws Exception
+	{
+		HeapPeakSampler first = new HeapPeakSampler(10);
+		byte[] large = new byte[64 * MB];
+		large[large.length - 1] = 1;
+		long firstPeak = first.getPeak();
+		first.stop();
+		assertTrue(firstPeak >= large.length);
+		large = null;
+		System.gc();
+
+		HeapPeakSampler second = new HeapPeakSampler(10);
+		long secondPeak = second.getPeak();
+		second.stop();
+		long used = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+		assertTrue("The second run reported the first run's peak: " + secondPeak + " vs " + firstPeak, 
+				secondPeak < firstPeak || used >= firstPeak);
+		assertTrue(secondPeak <= Runtime.getRuntime().totalMemory());
+	}
+}
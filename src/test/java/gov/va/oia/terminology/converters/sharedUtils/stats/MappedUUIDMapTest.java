@@ -0,0 +1,76 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.va.oia.terminology.converters.sharedUtils.stats;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.io.File;
+import java.util.UUID;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * {@link MappedUUIDMapTest}
+ *
+ * Growing the index many times keeps every entry, and only ever uses two index files - the previous one truncated.
+ *
+ * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
+ */
+public class MappedUUIDMapTest
+{
+	@Rule
+	public TemporaryFolder folder_ = new TemporaryFolder();
+
+	@Test
+	public void testIndexGrowthReusesFiles() throws Exception
+	{
+		File directory = folder_.getRoot();
+		MappedUUIDMap map = new MappedUUIDMap(directory);
+		try
+		{
+			int count = 400000;  //the index starts at 64K slots - this grows it 4 times
+			for (int i = 0; i < count; i++)
+			{
+				assertTrue(map.add(new UUID(i, -i), i % 2 == 0 ? "value " + i : null));
+			}
+			assertEquals(count, map.size());
+			for (int i = 0; i < count; i++)
+			{
+				assertEquals(i % 2 == 0 ? "value " + i : null, map.get(new UUID(i, -i)));
+			}
+
+			File[] files = directory.listFiles();
+			assertEquals("records, index and spare index", 3, files.length);
+			if (!System.getProperty("os.name").toLowerCase().startsWith("windows"))
+			{
+				int truncated = 0;
+				for (File file : files)
+				{
+					truncated += (file.length() == 0 ? 1 : 0);
+				}
+				assertEquals("The previous index should be truncated, to release its disk space", 1, truncated);
+			}
+		}
+		finally
+		{
+			map.close();
+		}
+	}
+}
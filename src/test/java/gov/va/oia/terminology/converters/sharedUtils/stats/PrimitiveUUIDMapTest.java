@@ -0,0 +1,90 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.va.oia.terminology.converters.sharedUtils.stats;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.util.UUID;
+import org.junit.Test;
+
+/**
+ * {@link PrimitiveUUIDMapTest}
+ *
+ * A UUID stored without a creation string is still a duplicate when it is generated again with one, and duplicates don't 
+ * grow the string arena.
+ *
+ * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
+ */
+public class PrimitiveUUIDMapTest
+{
+	@Test
+	public void testAddDetectsEntriesWithoutValue()
+	{
+		PrimitiveUUIDMap map = new PrimitiveUUIDMap();
+		UUID uuid = UUID.randomUUID();
+		assertTrue(map.add(uuid));
+		assertFalse("Stored without a value, but still present", map.add(uuid, "creation string"));
+		assertNull(map.get(uuid));
+		assertEquals(1, map.size());
+
+		UUID other = UUID.randomUUID();
+		assertTrue(map.add(other, "value"));
+		assertFalse(map.add(other));
+		assertEquals("value", map.get(other));
+	}
+
+	@Test
+	public void testDuplicatesDontGrowArena()
+	{
+		PrimitiveUUIDMap map = new PrimitiveUUIDMap();
+		UUID uuid = UUID.randomUUID();
+		map.put(uuid, "some creation string");
+		long memory = map.getMemoryUse();
+		for (int i = 0; i < 1000; i++)
+		{
+			assertFalse(map.add(uuid, "some creation string"));
+			assertEquals("some creation string", map.put(uuid, "some creation string"));
+		}
+		assertEquals(memory, map.getMemoryUse());
+	}
+
+	@Test
+	public void testContextDetectsDuplicateOfJournaledUUID() throws Exception
+	{
+		//a UUID restored from a journal written in duplicate detection only mode has no creation string
+		ConverterUUIDContext uuidContext = new ConverterUUIDContext();
+		uuidContext.configureNamespace(UUID.randomUUID());
+		uuidContext.setDupeCheckOnly(true);
+		UUID uuid = uuidContext.createNamespaceUUIDFromString("name");
+		uuidContext.setDupeCheckOnly(false);
+		assertEquals(uuid, uuidContext.createNamespaceUUIDFromString("name", true));
+		try
+		{
+			uuidContext.createNamespaceUUIDFromString("name");
+			fail("The duplicate of a UUID stored without a creation string wasn't detected");
+		}
+		catch (RuntimeException e)
+		{
+			//expected
+		}
+	}
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.va.oia.terminology.converters.sharedUtils.stats;
+
+import static org.junit.Assert.assertEquals;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+/**
+ * {@link StripedUUIDMapTest}
+ *
+ * Duplicate detection and stored values under concurrent adds - for the {@link StripedUUIDMap}, and a single 
+ * {@link PrimitiveUUIDMap} (one lock) for comparison.  The add throughput of each is measured by {@link UUIDDebugMapBenchmarkTest}.
+ *
+ * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
+ */
+public class StripedUUIDMapTest
+{
+	@Test
+	public void testDuplicatesDetectedOnceAcrossThreads() throws Exception
+	{
+		checkDuplicates(new StripedUUIDMap(16));
+	}
+
+	@Test
+	public void testDuplicatesDetectedOnceAcrossThreadsSingleLock() throws Exception
+	{
+		checkDuplicates(new PrimitiveUUIDMap());
+	}
+
+	/**
+	 * Every thread adds its own UUIDs plus the same shared set - each shared UUID must be reported as new exactly once, and keep 
+	 * the value of the add that stored it.
+	 */
+	private void checkDuplicates(final UUIDDebugMap map) throws Exception
+	{
+		int threadCount = 8;
+		final UUID[] shared = uuids(new Random(1), 20000);
+		final AtomicInteger sharedAdded = new AtomicInteger();
+		final AtomicInteger ownRejected = new AtomicInteger();
+		final String[] sharedStoredBy = new String[shared.length];
+		Thread[] threads = new Thread[threadCount];
+		for (int t = 0; t < threadCount; t++)
+		{
+			final UUID[] own = uuids(new Random(100 + t), 20000);
+			final String name = "thread " + t;
+			threads[t] = new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					for (int i = 0; i < own.length; i++)
+					{
+						if (!map.add(own[i], name + " own " + i))
+						{
+							ownRejected.incrementAndGet();
+						}
+						if (map.add(shared[i], name + " shared " + i))
+						{
+							sharedAdded.incrementAndGet();
+							sharedStoredBy[i] = name;
+						}
+					}
+				}
+			});
+		}
+		for (Thread t : threads)
+		{
+			t.start();
+		}
+		for (Thread t : threads)
+		{
+			t.join();
+		}
+		assertEquals(0, ownRejected.get());
+		assertEquals(shared.length, sharedAdded.get());
+		assertEquals(shared.length * (threadCount + 1), map.size());
+		for (int i = 0; i < shared.length; i++)
+		{
+			assertEquals(sharedStoredBy[i] + " shared " + i, map.get(shared[i]));
+		}
+		for (int t = 0; t < threadCount; t++)
+		{
+			UUID[] own = uuids(new Random(100 + t), 20000);
+			for (int i = 0; i < own.length; i += 97)
+			{
+				assertEquals("thread " + t + " own " + i, map.get(own[i]));
+			}
+		}
+	}
+
+	static UUID[] uuids(Random random, int count)
+	{
+		UUID[] result = new UUID[count];
+		for (int i = 0; i < count; i++)
+		{
+			result[i] = new UUID(random.nextLong(), random.nextLong());
+		}
+		return result;
+	}
+}
@@ -0,0 +1,181 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.va.oia.terminology.converters.sharedUtils.stats;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.UUID;
+import org.ihtsdo.otf.tcc.api.uuid.UuidT5Generator;
+import org.junit.Test;
+
+/**
+ * {@link Type5UUIDBuilderTest}
+ *
+ * The builder must produce exactly the UUID that UuidT5Generator produces for the values joined with '|' - any difference would 
+ * change the identifiers of every component of a terminology between releases.
+ *
+ * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
+ */
+public class Type5UUIDBuilderTest
+{
+	private static final String[] VALUES = new String[] {"", "a", "Fully Specified Name", "|", "caf\u00e9 \u00ff", "\u0100\u0101", "\u6f22\u5b57", 
+		"\ud83d\ude00", "x\ud800", "\udc00x", "\ud800\ud800\udc00", "\u20ac 5", "tab\tand\nnewline", null};
+
+	@Test
+	public void testStringsMatchGenerator() throws Exception
+	{
+		for (UUID namespace : new UUID[] {UUID.fromString("4b1f2d4e-6f5a-5d6c-9e3b-2a1c0f9e8d7c"), null})
+		{
+			for (String value : VALUES)
+			{
+				if (value != null)
+				{
+					assertEquals(value, UuidT5Generator.get(namespace, value), new Type5UUIDBuilder().reset(null, namespace, false).add(value).digest());
+				}
+				for (String other : VALUES)
+				{
+					Type5UUIDBuilder builder = new Type5UUIDBuilder().reset(null, namespace, true).add(value).add(other);
+					String name = key(value, other);
+					assertEquals(name != null, builder.hasValues());
+					if (name != null)
+					{
+						assertEquals(name, builder.getName());
+						assertEquals(name, UuidT5Generator.get(namespace, name), builder.digest());
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testLongStringsMatchGenerator() throws Exception
+	{
+		//longer than the builder's encoding buffer
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 1000; i++)
+		{
+			sb.append((char)(i * 37 % 0x3000));
+		}
+		String value = sb.toString();
+		UUID namespace = UUID.randomUUID();
+		assertEquals(UuidT5Generator.get(namespace, value), new Type5UUIDBuilder().reset(null, namespace, false).add(value).digest());
+		assertEquals(UuidT5Generator.get(namespace, value + "|" + value), 
+				new Type5UUIDBuilder().reset(null, namespace, false).add(value).add(value).digest());
+	}
+
+	@Test
+	public void testTypedValuesMatchGenerator() throws Exception
+	{
+		UUID namespace = UUID.randomUUID();
+		UUID value = UUID.randomUUID();
+		for (int i : new int[] {0, 1, -1, 42, -42, 1000000, Integer.MAX_VALUE, Integer.MIN_VALUE})
+		{
+			assertEquals(UuidT5Generator.get(namespace, value + "|" + i + "|true|false|SAMPLE"), new Type5UUIDBuilder().reset(null, namespace, false)
+					.add(value).add(i).add(true).add(false).add(Sample.SAMPLE).digest());
+		}
+		assertEquals(UuidT5Generator.get(namespace, value.toString()), new Type5UUIDBuilder().reset(null, namespace, false)
+				.add((UUID)null).add(value).add((Sample)null).add((String)null).digest());
+	}
+
+	@Test
+	public void testContextMatchesGenerator() throws Exception
+	{
+		ConverterUUIDContext uuidContext = new ConverterUUIDContext();
+		UUID namespace = UUID.randomUUID();
+		uuidContext.configureNamespace(namespace);
+		uuidContext.setUUIDMapDisabled(true);
+		ArrayList<String> parts = new ArrayList<>();
+		for (String value : VALUES)
+		{
+			parts.add(value);
+			String[] values = parts.toArray(new String[parts.size()]);
+			String key = key(values);
+			if (key != null)
+			{
+				assertEquals(UuidT5Generator.get(namespace, key), uuidContext.createNamespaceUUIDFromStrings(values));
+			}
+			else
+			{
+				try
+				{
+					uuidContext.createNamespaceUUIDFromStrings(values);
+					fail("ConverterUUID has always rejected " + Arrays.toString(values));
+				}
+				catch (RuntimeException e)
+				{
+					assertEquals("No string provided!", e.getMessage());
+				}
+			}
+			if (value != null)
+			{
+				assertEquals(UuidT5Generator.get(namespace, value), uuidContext.createNamespaceUUIDFromString(value));
+			}
+		}
+	}
+
+	@Test
+	public void testTimingOnlyWhenEnabled()
+	{
+		ConverterUUIDContext uuidContext = new ConverterUUIDContext();
+		uuidContext.configureNamespace(UUID.randomUUID());
+		uuidContext.setUUIDMapDisabled(true);
+		for (int i = 0; i < 100; i++)
+		{
+			uuidContext.uuidBuilder().add(i).create();
+		}
+		assertEquals(100, uuidContext.getUUIDGenerationCount());
+		assertEquals(0, uuidContext.getUUIDGenerationNanos());
+
+		uuidContext.setUUIDTimingEnabled(true);
+		for (int i = 0; i < 100; i++)
+		{
+			uuidContext.uuidBuilder().add(i).create();
+		}
+		assertEquals(200, uuidContext.getUUIDGenerationCount());
+		assertTrue(uuidContext.getUUIDGenerationNanos() > 0);
+	}
+
+	/**
+	 * The key that ConverterUUID.createNamespaceUUIDFromStrings has always built - each value (nulls skipped) followed by '|', 
+	 * with the trailing '|' trimmed.  Null where it rejects the values.
+	 */
+	private static String key(String ... values)
+	{
+		StringBuilder uuidKey = new StringBuilder();
+		for (String s : values)
+		{
+			if (s != null)
+			{
+				uuidKey.append(s);
+				uuidKey.append("|");
+			}
+		}
+		if (uuidKey.length() > 1)
+		{
+			uuidKey.setLength(uuidKey.length() - 1);
+			return uuidKey.toString();
+		}
+		return null;
+	}
+
+	private enum Sample {SAMPLE};
+}
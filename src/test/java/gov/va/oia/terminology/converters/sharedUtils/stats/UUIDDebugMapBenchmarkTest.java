@@ -0,0 +1,217 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.va.oia.terminology.converters.sharedUtils.stats;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import java.io.IOException;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * {@link UUIDDebugMapBenchmarkTest}
+ *
+ * The cost per UUID of the duplicate check that {@link ConverterUUIDContext} makes for each UUID it generates - an add with the 
+ * creation string, and a failed add for each duplicate - for each of the {@link UUIDDebugMap} implementations.  The timings are 
+ * printed, not asserted.  Also the add throughput of the in memory maps from 1 thread up to the number of cores.  Only runs with 
+ * -Pbenchmark (or -Dbenchmark=true).
+ *
+ * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
+ */
+public class UUIDDebugMapBenchmarkTest
+{
+	private static final int UUIDS = 2000000;
+	private static final int ROUNDS = 3;
+	private static final int UUIDS_PER_THREAD = 250000;
+
+	@Rule
+	public TemporaryFolder folder_ = new TemporaryFolder();
+
+	private interface MapFactory
+	{
+		public UUIDDebugMap create() throws IOException;
+	}
+
+	@Before
+	public void onlyWhenBenchmarking()
+	{
+		Assume.assumeTrue("Benchmarks only run with -Pbenchmark", Boolean.getBoolean("benchmark"));
+	}
+
+	@Test
+	public void testAddCostPerUUID() throws Exception
+	{
+		UUID[] uuids = new UUID[UUIDS];
+		String[] values = new String[UUIDS];
+		Random random = new Random(1);
+		for (int i = 0; i < UUIDS; i++)
+		{
+			uuids[i] = new UUID(random.nextLong(), random.nextLong());
+			values[i] = "Concept Description " + i + " FSN";
+		}
+
+		MapFactory[] factories = factories();
+
+		for (int round = 0; round < ROUNDS; round++)
+		{
+			for (MapFactory factory : factories)
+			{
+				UUIDDebugMap map = factory.create();
+				try
+				{
+					long start = System.nanoTime();
+					for (int i = 0; i < UUIDS; i++)
+					{
+						map.add(uuids[i], values[i]);
+					}
+					long added = System.nanoTime();
+					for (int i = 0; i < UUIDS; i += 10)
+					{
+						assertFalse(map.add(uuids[i], values[i]));
+					}
+					long duplicates = System.nanoTime();
+					assertEquals(UUIDS, map.size());
+					System.out.println("Round " + round + ", " + factory + ": " + (added - start) / UUIDS + " ns per new UUID, " 
+							+ (duplicates - added) / (UUIDS / 10) + " ns per duplicate");
+				}
+				finally
+				{
+					map.close();
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testAddThroughputByThreads() throws Exception
+	{
+		int cores = Runtime.getRuntime().availableProcessors();
+		for (MapFactory factory : factories())
+		{
+			if (factory.toString().equals("mapped"))
+			{
+				continue;  //single threaded
+			}
+			addsPerSecond(factory.create(), 1);  //warm up
+			double single = 0;
+			for (int threads = 1; threads <= cores; threads = (threads == cores ? threads + 1 : Math.min(threads * 2, cores)))
+			{
+				double rate = addsPerSecond(factory.create(), threads);
+				if (threads == 1)
+				{
+					single = rate;
+				}
+				System.out.println(factory + ", " + threads + " threads: " + Math.round(rate) + " adds/sec (" 
+						+ String.format("%.2f", rate / single) + "x)");
+			}
+		}
+	}
+
+	private MapFactory[] factories()
+	{
+		return new MapFactory[] {
+			new MapFactory()
+			{
+				@Override
+				public UUIDDebugMap create()
+				{
+					return new StripedUUIDMap();
+				}
+
+				@Override
+				public String toString()
+				{
+					return "striped";
+				}
+			},
+			new MapFactory()
+			{
+				@Override
+				public UUIDDebugMap create()
+				{
+					return new PrimitiveUUIDMap();
+				}
+
+				@Override
+				public String toString()
+				{
+					return "single";
+				}
+			},
+			new MapFactory()
+			{
+				@Override
+				public UUIDDebugMap create() throws IOException
+				{
+					return new MappedUUIDMap(folder_.newFolder());
+				}
+
+				@Override
+				public String toString()
+				{
+					return "mapped";
+				}
+			}};
+	}
+
+	private double addsPerSecond(final UUIDDebugMap map, int threadCount) throws Exception
+	{
+		final CountDownLatch start = new CountDownLatch(1);
+		Thread[] threads = new Thread[threadCount];
+		for (int t = 0; t < threadCount; t++)
+		{
+			final UUID[] own = StripedUUIDMapTest.uuids(new Random(t), UUIDS_PER_THREAD);
+			threads[t] = new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					try
+					{
+						start.await();
+					}
+					catch (InterruptedException e)
+					{
+						return;
+					}
+					for (UUID uuid : own)
+					{
+						map.add(uuid);
+					}
+				}
+			});
+			threads[t].start();
+		}
+		long begin = System.nanoTime();
+		start.countDown();
+		for (Thread t : threads)
+		{
+			t.join();
+		}
+		long nanos = System.nanoTime() - begin;
+		assertEquals((long) UUIDS_PER_THREAD * threadCount, map.size());
+		return (double) UUIDS_PER_THREAD * threadCount / nanos * 1000000000.0;
+	}
+}